@@ -0,0 +1,99 @@
+package clockworks.benchmark;
+
+import clockworks.domain.MisfirePolicy;
+import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
+import clockworks.infrastructure.struct.RetryPolicyDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
+import clockworks.infrastructure.repository.InMemoryTimerRepository;
+import io.vertx.core.Future;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimAndFireBenchmark {
+  static final int BATCH_SIZE = 100;
+
+  @State(Scope.Benchmark)
+  public static class LoadedRepository {
+    @Param({"1000000"})
+    public int timers;
+    public InMemoryTimerRepository timerRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      timerRepository = new InMemoryTimerRepository();
+      var definitionId = UUID.randomUUID();
+      var triggerTime = OffsetDateTime.now(ZoneOffset.UTC).minusHours(1);
+      var loaded = new ArrayList<TimerDTO>(timers);
+      for (int i = 0; i < timers; i++) {
+        loaded.add(new TimerDTO(UUID.randomUUID(), definitionId, triggerTime.plusNanos(i * 1000L), 0));
+      }
+      timerRepository.save(new GroupTimerDefinitionDTO(null, null, null, List.of(), null), loaded);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<TimerDTO> claimAndRequeue(LoadedRepository state) {
+    var claimed = state.timerRepository.lockDueTimers(new int[0], BATCH_SIZE).result();
+    var requeueAt = OffsetDateTime.now(ZoneOffset.UTC).minusSeconds(1);
+    state.timerRepository.transition(claimed.stream().map(v -> TimerTransitionDTO.requeue(v, requeueAt)).toList());
+    return claimed;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void claimAndFire(ServiceState state) {
+    var definitions = new ArrayList<TimerDefinitionDTO>(BATCH_SIZE);
+    var timers = new ArrayList<TimerDTO>(BATCH_SIZE);
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      var definitionDTO = new TimerDefinitionDTO(
+        UUID.randomUUID(),
+        null,
+        "benchmark",
+        null,
+        0,
+        -1,
+        false,
+        state.callbackUrl,
+        false,
+        RetryPolicyDTO.DEFAULT,
+        MisfirePolicy.FIRE_ONCE_NOW,
+        null,
+        null,
+        now
+      );
+      definitions.add(definitionDTO);
+      timers.add(new TimerDTO(UUID.randomUUID(), definitionDTO.definitionId(), now.minusSeconds(1), 0));
+    }
+    state.timerRepository.save(new GroupTimerDefinitionDTO(null, null, null, definitions, now), timers);
+
+    var claimed = state.timerRepository.lockDueTimers(new int[0], BATCH_SIZE).result();
+    Future.join(state.timerService.onTriggered(claimed)).toCompletionStage().toCompletableFuture().join();
+  }
+}
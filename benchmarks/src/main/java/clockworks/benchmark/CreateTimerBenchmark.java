@@ -0,0 +1,40 @@
+package clockworks.benchmark;
+
+import clockworks.infrastructure.struct.CreateTimerDefinitionArgsDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateTimerBenchmark {
+
+  @Benchmark
+  public TimerDefinitionDTO createTimer(ServiceState state) {
+    var argsDTO = new CreateTimerDefinitionArgsDTO(
+      null,
+      "benchmark",
+      "created by CreateTimerBenchmark",
+      3600,
+      3600,
+      false,
+      state.callbackUrl,
+      false,
+      null,
+      null,
+      null,
+      null
+    );
+    return state.timerService.createTimer(argsDTO).toCompletionStage().toCompletableFuture().join();
+  }
+}
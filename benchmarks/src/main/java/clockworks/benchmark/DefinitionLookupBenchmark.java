@@ -0,0 +1,82 @@
+package clockworks.benchmark;
+
+import clockworks.domain.MisfirePolicy;
+import clockworks.infrastructure.repository.CachingTimerRepository;
+import clockworks.infrastructure.repository.InMemoryTimerRepository;
+import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
+import clockworks.infrastructure.struct.RetryPolicyDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DefinitionLookupBenchmark {
+  @Param({"100000"})
+  public int definitions;
+  private UUID[] definitionIds;
+  private InMemoryTimerRepository timerRepository;
+  private CachingTimerRepository cachingTimerRepository;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    timerRepository = new InMemoryTimerRepository();
+    cachingTimerRepository = new CachingTimerRepository(timerRepository, definitions, TimeUnit.HOURS.toMillis(1));
+    definitionIds = new UUID[Integer.highestOneBit(definitions)];
+    var definitionDTOs = new ArrayList<TimerDefinitionDTO>(definitions);
+    for (int i = 0; i < definitions; i++) {
+      var definitionDTO = new TimerDefinitionDTO(
+        UUID.randomUUID(),
+        null,
+        "benchmark",
+        null,
+        0,
+        60,
+        false,
+        "http://localhost/callback",
+        false,
+        RetryPolicyDTO.DEFAULT,
+        MisfirePolicy.FIRE_ONCE_NOW,
+        null,
+        null,
+        OffsetDateTime.now()
+      );
+      definitionDTOs.add(definitionDTO);
+      if (i < definitionIds.length) {
+        definitionIds[i] = definitionDTO.definitionId();
+      }
+    }
+    timerRepository.save(new GroupTimerDefinitionDTO(null, null, null, definitionDTOs, OffsetDateTime.now()), List.of());
+  }
+
+  @Benchmark
+  public TimerDefinitionDTO inMemory() {
+    return timerRepository.findById(definitionIds[next++ & (definitionIds.length - 1)]).result();
+  }
+
+  @Benchmark
+  public TimerDefinitionDTO cached() {
+    return cachingTimerRepository.findById(definitionIds[next++ & (definitionIds.length - 1)]).result();
+  }
+}
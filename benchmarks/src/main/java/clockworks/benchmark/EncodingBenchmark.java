@@ -0,0 +1,66 @@
+package clockworks.benchmark;
+
+import clockworks.domain.MisfirePolicy;
+import clockworks.infrastructure.struct.RetryPolicyDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.vertx.core.json.jackson.DatabindCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+  private TimerDefinitionDTO definitionDTO;
+  private TimerDTO timerDTO;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    DatabindCodec.mapper().registerModule(new JavaTimeModule());
+    definitionDTO = new TimerDefinitionDTO(
+      UUID.randomUUID(),
+      "group",
+      "benchmark",
+      "encoded by EncodingBenchmark",
+      60,
+      60,
+      false,
+      "http://localhost/callback",
+      false,
+      RetryPolicyDTO.DEFAULT,
+      MisfirePolicy.FIRE_ONCE_NOW,
+      null,
+      null,
+      OffsetDateTime.now()
+    );
+    timerDTO = new TimerDTO(UUID.randomUUID(), definitionDTO.definitionId(), OffsetDateTime.now(), 0);
+  }
+
+  @Benchmark
+  public String timerDefinition() {
+    return definitionDTO.jsonObject().encode();
+  }
+
+  @Benchmark
+  public String timer() {
+    return timerDTO.jsonObject().encode();
+  }
+}
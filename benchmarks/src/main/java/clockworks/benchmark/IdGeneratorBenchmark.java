@@ -0,0 +1,35 @@
+package clockworks.benchmark;
+
+import clockworks.domain.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class IdGeneratorBenchmark {
+  private static final IdGenerator RANDOM = IdGenerator.random();
+  private static final IdGenerator TIME_ORDERED = IdGenerator.timeOrdered();
+
+  @Benchmark
+  public UUID random() {
+    return RANDOM.next();
+  }
+
+  @Benchmark
+  public UUID timeOrdered() {
+    return TIME_ORDERED.next();
+  }
+}
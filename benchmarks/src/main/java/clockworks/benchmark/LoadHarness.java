@@ -0,0 +1,294 @@
+package clockworks.benchmark;
+
+import clockworks.BootstrapVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.HdrHistogram.Histogram;
+
+import java.nio.file.Files;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LoadHarness {
+  private static final int MIN_INITIAL_DELAY_SECONDS = 5;
+  private static final Map<String, String> DEFAULTS = Map.of(
+    "url", "",
+    "port", "8000",
+    "sinkPort", "9009",
+    "timers", "10000",
+    "groups", "100",
+    "groupSize", "10",
+    "intervals", "5,10,30,60",
+    "durationSeconds", "120",
+    "graceSeconds", "2",
+    "concurrency", "64"
+  );
+
+  public static void main(String[] args) throws Exception {
+    var options = new HashMap<>(DEFAULTS);
+    for (var arg : args) {
+      var separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0 || !DEFAULTS.containsKey(arg.substring(2, separator))) {
+        System.err.println("unknown option " + arg + ", expected --name=value with name in " + DEFAULTS.keySet());
+        System.exit(2);
+      }
+      options.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+
+    var vertx = Vertx.vertx();
+    var sink = new CallbackSink();
+    var sinkPort = Integer.parseInt(options.get("sinkPort"));
+    join(vertx.createHttpServer().requestHandler(sink).listen(sinkPort));
+
+    var url = options.get("url");
+    if (url.isEmpty()) {
+      var port = Integer.parseInt(options.get("port"));
+      var directory = Files.createTempDirectory("clockworks-load");
+      var config = new JsonObject()
+        .put("httpPort", port)
+        .put("repository", new JsonObject().put("type", "embedded").put("directory", directory.toString()))
+        .put("requester", new JsonObject().put("maxConcurrentPerHost", 1024));
+      join(vertx.deployVerticle(BootstrapVerticle.class, new DeploymentOptions().setConfig(config)));
+      url = "http://127.0.0.1:" + port;
+      System.out.println("started clockworks on " + url + " with embedded storage in " + directory);
+    }
+
+    var callbackUrl = "http://127.0.0.1:%d/callback".formatted(sinkPort);
+    var intervals = options.get("intervals").split(",");
+    var requests = new ArrayList<CreateRequest>();
+    for (int i = 0; i < Integer.parseInt(options.get("timers")); i++) {
+      requests.add(new CreateRequest("/api/v1/timer", timerArgs(callbackUrl, intervals, i)));
+    }
+    for (int i = 0; i < Integer.parseInt(options.get("groups")); i++) {
+      var timers = new JsonArray();
+      for (int j = 0; j < Integer.parseInt(options.get("groupSize")); j++) {
+        timers.add(timerArgs(callbackUrl, intervals, j));
+      }
+      var group = new JsonObject()
+        .put("groupName", "load-group-" + i)
+        .put("timers", timers);
+      requests.add(new CreateRequest("/api/v1/group-timer", group));
+    }
+
+    var client = WebClient.create(vertx, new WebClientOptions().setMaxPoolSize(Integer.parseInt(options.get("concurrency"))));
+    var definitions = new Definitions();
+    var createStart = System.nanoTime();
+    join(create(client, url, requests, definitions, Integer.parseInt(options.get("concurrency"))));
+    var createSeconds = (System.nanoTime() - createStart) / 1e9;
+    System.out.printf("created %d timers in %d requests in %.1fs (%.0f requests/s), %d failed%n",
+      definitions.size(), requests.size(), createSeconds, requests.size() / createSeconds, definitions.failures.get());
+
+    var measureStart = System.currentTimeMillis();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(Long.parseLong(options.get("durationSeconds"))));
+    var measureEnd = System.currentTimeMillis();
+
+    sink.report(definitions, measureStart, measureEnd, TimeUnit.SECONDS.toMillis(Long.parseLong(options.get("graceSeconds"))));
+    join(vertx.close());
+  }
+
+  private static JsonObject timerArgs(String callbackUrl, String[] intervals, int index) {
+    var random = ThreadLocalRandom.current();
+    var intervalSeconds = Integer.parseInt(intervals[index % intervals.length].trim());
+    return new JsonObject()
+      .put("timerName", "load-" + index)
+      .put("initialDelaySeconds", MIN_INITIAL_DELAY_SECONDS + random.nextInt(intervalSeconds))
+      .put("intervalSeconds", intervalSeconds)
+      .put("fixedRate", index % 2 == 0)
+      .put("callbackUrl", callbackUrl);
+  }
+
+  private static Future<Void> create(WebClient client,
+                                     String url,
+                                     List<CreateRequest> requests,
+                                     Definitions definitions,
+                                     int concurrency) {
+    var next = new AtomicInteger();
+    var workers = new ArrayList<Future<Void>>();
+    for (int i = 0; i < concurrency; i++) {
+      var promise = Promise.<Void>promise();
+      createNext(client, url, requests, definitions, next, promise);
+      workers.add(promise.future());
+    }
+    return Future.all(workers).mapEmpty();
+  }
+
+  private static void createNext(WebClient client,
+                                 String url,
+                                 List<CreateRequest> requests,
+                                 Definitions definitions,
+                                 AtomicInteger next,
+                                 Promise<Void> done) {
+    var index = next.getAndIncrement();
+    if (index >= requests.size()) {
+      done.complete();
+      return;
+    }
+
+    var request = requests.get(index);
+    client.postAbs(url + request.path())
+      .sendJsonObject(request.body())
+      .onComplete(event -> {
+        try {
+          if (event.failed()) {
+            definitions.failures.incrementAndGet();
+            return;
+          }
+
+          var body = decode(event.result().bodyAsString());
+          if (body == null) {
+            if (definitions.failures.incrementAndGet() == 1) {
+              System.err.println("create failed: " + event.result().bodyAsString());
+            }
+            return;
+          }
+
+          var timers = body.containsKey("timers") ? body.getJsonArray("timers") : new JsonArray().add(body);
+          for (int i = 0; i < timers.size(); i++) {
+            definitions.add(timers.getJsonObject(i));
+          }
+        } finally {
+          createNext(client, url, requests, definitions, next, done);
+        }
+      });
+  }
+
+  private static JsonObject decode(String body) {
+    try {
+      return new JsonObject(body);
+    } catch (DecodeException e) {
+      return null;
+    }
+  }
+
+  private static long epochMillis(Object value) {
+    if (value instanceof Number number) {
+      return Math.round(number.doubleValue() * 1000);
+    }
+    return OffsetDateTime.parse(value.toString()).toInstant().toEpochMilli();
+  }
+
+  private static <T> T join(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().join();
+  }
+
+  private record CreateRequest(String path, JsonObject body) {
+  }
+
+  private record Definition(long firstTriggerMillis, long intervalMillis) {
+  }
+
+  private static class Definitions {
+    private final Map<UUID, Definition> definitions = new HashMap<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    synchronized void add(JsonObject definitionDTO) {
+      if (!definitionDTO.containsKey("definitionId")) {
+        failures.incrementAndGet();
+        return;
+      }
+
+      // the first occurrence is due one interval after the initial delay
+      var updatedAt = epochMillis(definitionDTO.getValue("updatedAt"));
+      var intervalMillis = TimeUnit.SECONDS.toMillis(definitionDTO.getInteger("intervalSeconds"));
+      definitions.put(
+        UUID.fromString(definitionDTO.getString("definitionId")),
+        new Definition(updatedAt + TimeUnit.SECONDS.toMillis(definitionDTO.getInteger("initialDelaySeconds")) + intervalMillis, intervalMillis)
+      );
+    }
+
+    synchronized int size() {
+      return definitions.size();
+    }
+  }
+
+  private static class CallbackSink implements Handler<HttpServerRequest> {
+    private final Histogram lateness = new Histogram(TimeUnit.HOURS.toMillis(1), 3);
+    private final Map<UUID, List<Long>> triggerTimes = new HashMap<>();
+    private final Set<String> fired = new HashSet<>();
+    private long fires;
+    private long duplicates;
+    private long early;
+    private long firstFireMillis = Long.MAX_VALUE;
+    private long lastFireMillis;
+
+    @Override
+    public void handle(HttpServerRequest request) {
+      request.body().onSuccess(body -> {
+        var receivedMillis = System.currentTimeMillis();
+        var timerDTO = body.toJsonObject();
+        this.record(
+          UUID.fromString(timerDTO.getString("definitionId")),
+          epochMillis(timerDTO.getValue("triggerTime")),
+          receivedMillis
+        );
+        request.response().end();
+      });
+    }
+
+    private synchronized void record(UUID definitionId, long triggerMillis, long receivedMillis) {
+      fires++;
+      firstFireMillis = Math.min(firstFireMillis, receivedMillis);
+      lastFireMillis = Math.max(lastFireMillis, receivedMillis);
+      if (!fired.add(definitionId + "@" + triggerMillis)) {
+        duplicates++;
+        return;
+      }
+
+      var late = receivedMillis - triggerMillis;
+      if (late < 0) {
+        early++;
+      }
+      lateness.recordValue(Math.min(Math.max(late, 0), lateness.getHighestTrackableValue()));
+      triggerTimes.computeIfAbsent(definitionId, k -> new ArrayList<>()).add(triggerMillis);
+    }
+
+    synchronized void report(Definitions definitions, long start, long end, long grace) {
+      var missed = 0L;
+      var deadline = end - grace;
+      synchronized (definitions) {
+        for (var entry : definitions.definitions.entrySet()) {
+          var definition = entry.getValue();
+          var times = triggerTimes.getOrDefault(entry.getKey(), List.of()).stream().sorted().toList();
+          var previous = times.isEmpty() ? definition.firstTriggerMillis() - definition.intervalMillis() : times.get(0);
+          for (var time : times) {
+            missed += Math.max(0, Math.round((double) (time - previous) / definition.intervalMillis()) - 1);
+            previous = time;
+          }
+          if (previous + definition.intervalMillis() < deadline) {
+            missed += (deadline - previous) / definition.intervalMillis();
+          }
+        }
+      }
+
+      var seconds = Math.max(1, end - start) / 1000.0;
+      System.out.printf("fires %d in %.0fs, %.1f fires/s (%.1f fires/s between first and last fire)%n",
+        fires, seconds, fires / seconds, fires * 1000.0 / Math.max(1, lastFireMillis - firstFireMillis));
+      System.out.printf("duplicate fires %d, missed fires %d, early fires %d%n", duplicates, missed, early);
+      System.out.printf("lateness ms: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n",
+        lateness.getValueAtPercentile(50),
+        lateness.getValueAtPercentile(90),
+        lateness.getValueAtPercentile(99),
+        lateness.getValueAtPercentile(99.9),
+        lateness.getMaxValue());
+      lateness.outputPercentileDistribution(System.out, 5, 1.0);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package clockworks.benchmark;
+
+import clockworks.domain.TimingWheel;
+import clockworks.infrastructure.repository.DueIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulingStructureBenchmark {
+  @Param({"1000000"})
+  public int timers;
+  private long[] expirations;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var random = ThreadLocalRandom.current();
+    expirations = new long[timers];
+    for (int i = 0; i < timers; i++) {
+      expirations[i] = random.nextLong(TimeUnit.HOURS.toMillis(1));
+    }
+  }
+
+  @Benchmark
+  public long timingWheel() {
+    var wheel = new TimingWheel<Integer>(1, 512, 0);
+    for (int i = 0; i < timers; i++) {
+      wheel.add(expirations[i] + 1, i);
+    }
+
+    var fired = new long[1];
+    while (wheel.nextExpiration() != Long.MAX_VALUE) {
+      wheel.advance(wheel.nextExpiration(), v -> fired[0]++);
+    }
+    return fired[0];
+  }
+
+  @Benchmark
+  public long dueIndex() {
+    var index = new DueIndex();
+    for (int i = 0; i < timers; i++) {
+      index.add(i, expirations[i]);
+    }
+
+    long fired = 0;
+    while (index.poll() != -1) {
+      fired++;
+    }
+    return fired;
+  }
+
+  @Benchmark
+  public long priorityQueue() {
+    var queue = new PriorityQueue<long[]>((a, b) -> Long.compare(a[0], b[0]));
+    for (int i = 0; i < timers; i++) {
+      queue.add(new long[]{expirations[i], i});
+    }
+
+    long fired = 0;
+    while (queue.poll() != null) {
+      fired++;
+    }
+    return fired;
+  }
+
+  @Benchmark
+  public long concurrentSkipList() {
+    var set = new ConcurrentSkipListSet<long[]>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    for (int i = 0; i < timers; i++) {
+      set.add(new long[]{expirations[i], i});
+    }
+
+    long fired = 0;
+    while (set.pollFirst() != null) {
+      fired++;
+    }
+    return fired;
+  }
+}
@@ -0,0 +1,50 @@
+package clockworks.benchmark;
+
+import clockworks.domain.CallbackBatcher;
+import clockworks.domain.IdGenerator;
+import clockworks.domain.Requester;
+import clockworks.domain.TimerService;
+import clockworks.infrastructure.repository.InMemoryTimerRepository;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class ServiceState {
+  public Vertx vertx;
+  public HttpServer callbackServer;
+  public InMemoryTimerRepository timerRepository;
+  public TimerService timerService;
+  public String callbackUrl;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    DatabindCodec.mapper().registerModule(new JavaTimeModule());
+    vertx = Vertx.vertx();
+    callbackServer = vertx.createHttpServer()
+      .requestHandler(request -> request.response().setStatusCode(204).end())
+      .listen(0)
+      .toCompletionStage().toCompletableFuture().join();
+    callbackUrl = "http://127.0.0.1:%d/callback".formatted(callbackServer.actualPort());
+
+    var requesterConfig = new JsonObject()
+      .put("maxConcurrentPerHost", 10000)
+      .put("maxWaitQueueSize", 100000);
+    var requester = Requester.create(vertx, requesterConfig);
+    timerRepository = new InMemoryTimerRepository();
+    timerService = new TimerService(5, timerRepository, requester, new CallbackBatcher(vertx, requester, 20, 100), 60000,
+      IdGenerator.timeOrdered());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    vertx.close().toCompletionStage().toCompletableFuture().join();
+  }
+}
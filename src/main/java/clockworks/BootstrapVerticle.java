@@ -0,0 +1,32 @@
+package clockworks;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+public class BootstrapVerticle extends AbstractVerticle {
+  @Override
+  public void start(Promise<Void> startPromise) {
+    var embedded = "embedded".equals(config().getJsonObject("repository", new JsonObject()).getString("type"));
+    int instances = embedded ? 1 : config().getInteger("instances", Runtime.getRuntime().availableProcessors());
+    var nodeId = config().getString("nodeId", UUID.randomUUID().toString());
+
+    var deployments = new ArrayList<Future<String>>();
+    for (int i = 0; i < instances; i++) {
+      var config = config().copy()
+        .put("nodeId", nodeId)
+        .put("instance", i)
+        .put("instances", instances);
+      deployments.add(vertx.deployVerticle(MainVerticle.class, new DeploymentOptions().setConfig(config)));
+    }
+
+    Future.all(deployments)
+      .<Void>mapEmpty()
+      .onComplete(startPromise);
+  }
+}
@@ -0,0 +1,24 @@
+package clockworks;
+
+import io.vertx.core.Launcher;
+import io.vertx.core.VertxOptions;
+import io.vertx.micrometer.Label;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+import io.vertx.micrometer.VertxPrometheusOptions;
+
+public class ClockworksLauncher extends Launcher {
+  public static void main(String[] args) {
+    new ClockworksLauncher().dispatch(args);
+  }
+
+  @Override
+  public void beforeStartingVertx(VertxOptions options) {
+    options.setMetricsOptions(new MicrometerMetricsOptions()
+      .setEnabled(true)
+      .setJvmMetricsEnabled(true)
+      .addLabels(Label.HTTP_ROUTE, Label.POOL_NAME)
+      .setPrometheusOptions(new VertxPrometheusOptions()
+        .setEnabled(true)
+        .setPublishQuantiles(true)));
+  }
+}
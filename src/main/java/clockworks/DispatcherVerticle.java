@@ -0,0 +1,83 @@
+package clockworks;
+
+import clockworks.domain.CallbackSender;
+import clockworks.infrastructure.LocalCodec;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+public class DispatcherVerticle extends AbstractVerticle {
+  public static final String ADDRESS = "clockworks.dispatch";
+  /**
+   * Leaves the dispatcher time to answer a timed out call before the sender gives up on it.
+   */
+  private static final long SEND_TIMEOUT_MARGIN_MILLIS = 1000;
+  private static final int SEND_FAILURE = 500;
+  private static final int EXPIRED = 504;
+
+  private final Logger logger = LoggerFactory.getLogger(DispatcherVerticle.class);
+
+  /**
+   * The deadline covers the wait for a pooled connection and then for the response; a call that could not be answered
+   * before it is dropped unsent, so it is never delivered after the sender gave up and retried it.
+   */
+  public static CallbackSender sender(Vertx vertx, JsonObject config) {
+    LocalCodec.register(vertx);
+    var budgetMillis = 2 * config.getLong("responseTimeoutMillis", 5000L);
+    var options = new DeliveryOptions()
+      .setCodecName(LocalCodec.NAME)
+      .setLocalOnly(true)
+      .setSendTimeout(budgetMillis + SEND_TIMEOUT_MARGIN_MILLIS);
+    return (url, body) -> vertx.eventBus()
+      .<HttpResponse<Buffer>>request(ADDRESS,
+        new Call(url, body, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis)), options)
+      .map(Message::body);
+  }
+
+  @Override
+  public void start(Promise<Void> startPromise) {
+    LocalCodec.register(vertx);
+    var sender = CallbackSender.webClient(vertx, config());
+    var responseTimeoutMillis = config().getLong("responseTimeoutMillis", 5000L);
+    var replyOptions = new DeliveryOptions().setCodecName(LocalCodec.NAME);
+
+    vertx.eventBus()
+      .<Call>localConsumer(ADDRESS, message -> {
+        var call = message.body();
+        var connectTimeoutMillis = TimeUnit.NANOSECONDS.toMillis(call.deadlineNanos() - System.nanoTime())
+          - responseTimeoutMillis;
+        if (connectTimeoutMillis <= 0) {
+          logger.warn("call {} expired before it was sent", call.url());
+          message.fail(EXPIRED, "expired before it was sent");
+          return;
+        }
+
+        Future<HttpResponse<Buffer>> response;
+        try {
+          response = sender.send(call.url(), call.body(), connectTimeoutMillis);
+        } catch (RuntimeException e) {
+          logger.warn("send {} failed: {}", call.url(), e.getMessage());
+          message.fail(SEND_FAILURE, e.getMessage());
+          return;
+        }
+
+        response
+          .onSuccess(event -> message.reply(event, replyOptions))
+          .onFailure(event -> message.fail(SEND_FAILURE, event.getMessage()));
+      })
+      .completionHandler(startPromise);
+  }
+
+  private record Call(String url, Object body, long deadlineNanos) {
+  }
+}
@@ -1,18 +1,37 @@
 package clockworks;
 
+import clockworks.domain.CallbackBatcher;
+import clockworks.domain.DispatchSlots;
+import clockworks.domain.IdGenerator;
+import clockworks.domain.LeasedShardOwner;
 import clockworks.domain.Requester;
+import clockworks.domain.ShardOwner;
+import clockworks.domain.StaticShardOwner;
 import clockworks.domain.TimerService;
 import clockworks.handler.*;
+import clockworks.infrastructure.Meters;
+import clockworks.infrastructure.repository.CachingTimerRepository;
+import clockworks.infrastructure.repository.EmbeddedTimerRepository;
 import clockworks.infrastructure.repository.PgTimerRepository;
+import clockworks.infrastructure.repository.PgTimerSubscriber;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.ThreadingModel;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.json.jackson.DatabindCodec;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
+import io.vertx.micrometer.PrometheusScrapingHandler;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
 
 import static clockworks.infrastructure.Exceptions.toJsonText;
 
@@ -23,17 +42,146 @@ public class MainVerticle extends AbstractVerticle {
     mapper.registerModule(new JavaTimeModule());
 
     int MIN_INTERVAL_SECONDS = 5;
-    var timerRepository = PgTimerRepository.create(context);
-    var requester = new Requester();
-    var timerService = new TimerService(MIN_INTERVAL_SECONDS, timerRepository, requester);
+    int SCAN_INTERVAL_SECONDS = 60;
+    int SCAN_BATCH_SIZE = 100;
+    int PREFETCH_INTERVAL_SECONDS = 30;
+    int PREFETCH_LOOKAHEAD_SECONDS = PREFETCH_INTERVAL_SECONDS * 2;
+    int PREFETCH_LIMIT = 10000;
+    int DEFINITION_CACHE_SIZE = 10000;
+    int DEFINITION_CACHE_TTL_SECONDS = 60;
+    int LOCK_TIMEOUT_SECONDS = 300;
+    int PARTITION_ROTATE_INTERVAL_SECONDS = 3600;
+    int BACKLOG_SAMPLE_INTERVAL_SECONDS = 5;
+    int instance = config().getInteger("instance", 0);
+    long misfireThresholdMillis = config().getInteger("misfireThresholdSeconds", 60) * 1000L;
+    var leasedShardOwner = config().getBoolean("shardLeases", false) ? new LeasedShardOwner() : null;
+    ShardOwner shardOwner = leasedShardOwner != null
+      ? leasedShardOwner
+      : new StaticShardOwner(instance, config().getInteger("instances", 1));
+    var repositoryConfig = config().getJsonObject("repository", new JsonObject());
+    var embeddedTimerRepository = "embedded".equals(repositoryConfig.getString("type"))
+      ? EmbeddedTimerRepository.create(vertx, repositoryConfig, PREFETCH_LOOKAHEAD_SECONDS)
+      : null;
+    var pgTimerRepository = embeddedTimerRepository == null
+      ? PgTimerRepository.create(context, repositoryConfig, PREFETCH_LOOKAHEAD_SECONDS)
+      : null;
+    var timerRepository = new CachingTimerRepository(
+      embeddedTimerRepository != null ? embeddedTimerRepository : pgTimerRepository,
+      DEFINITION_CACHE_SIZE,
+      DEFINITION_CACHE_TTL_SECONDS * 1000L
+    );
+    Meters.bindDefinitionCache(timerRepository, instance);
+    var requesterConfig = config().getJsonObject("requester", new JsonObject());
+    var dispatchConfig = config().getJsonObject("dispatch", new JsonObject());
+    int dispatchers = dispatchConfig.getInteger("instances", 2);
+    var requester = dispatchers > 0
+      ? Requester.create(requesterConfig, DispatcherVerticle.sender(vertx, requesterConfig))
+      : Requester.create(vertx, requesterConfig);
+    var dispatchSlots = new DispatchSlots(dispatchConfig.getInteger("capacity", 1000), instance);
+    var callbackBatcher = new CallbackBatcher(
+      vertx,
+      requester,
+      requesterConfig.getLong("batchWindowMillis", 20L),
+      requesterConfig.getInteger("batchMaxSize", 100)
+    );
+    var timerService = new TimerService(
+      MIN_INTERVAL_SECONDS,
+      timerRepository,
+      requester,
+      callbackBatcher,
+      misfireThresholdMillis,
+      IdGenerator.of(config().getString("idGenerator", "uuidv7"))
+    );
 
     var router = this.initRouter(timerService);
 
-    vertx.createHttpServer()
-      .requestHandler(router)
-      .listen(8000, this.resultHandler(startPromise));
+    var storageReady = pgTimerRepository != null
+      ? pgTimerRepository.migrate().compose(v -> timerRepository.rotatePartitions(OffsetDateTime.now())).<Void>mapEmpty()
+      : Future.<Void>succeededFuture();
+
+    storageReady
+      .compose(v -> this.deployDispatchers(dispatchers, dispatchConfig, requesterConfig))
+      .compose(v -> vertx.createHttpServer()
+        .requestHandler(router)
+        .listen(config().getInteger("httpPort", 8000)))
+      .onSuccess(server -> {
+        var prefetchTimerHandler = new PrefetchTimerHandler(
+          vertx,
+          timerRepository,
+          timerService,
+          shardOwner,
+          dispatchSlots,
+          PREFETCH_LOOKAHEAD_SECONDS,
+          PREFETCH_LIMIT,
+          misfireThresholdMillis
+        );
+        var scanWaitingTimerHandler = new ScanWaitingTimerHandler(
+          vertx,
+          timerRepository,
+          timerService,
+          shardOwner,
+          dispatchSlots,
+          SCAN_BATCH_SIZE,
+          config().getInteger("catchUpMaxFiresPerSecond", 1000),
+          instance
+        );
+        dispatchSlots.freeHandler(scanWaitingTimerHandler.limit(), v -> scanWaitingTimerHandler.handle(null));
+        scanWaitingTimerHandler.handle(null);
+        vertx.setPeriodic(SCAN_INTERVAL_SECONDS * 1000, scanWaitingTimerHandler);
+        vertx.setPeriodic(PREFETCH_INTERVAL_SECONDS * 1000, prefetchTimerHandler);
+        vertx.setPeriodic(BACKLOG_SAMPLE_INTERVAL_SECONDS * 1000, new SampleDueBacklogHandler(timerRepository, shardOwner, instance));
+        vertx.setPeriodic(SCAN_INTERVAL_SECONDS * 1000, new RecoverStaleTimerHandler(timerRepository, shardOwner, LOCK_TIMEOUT_SECONDS));
+        if (pgTimerRepository != null && instance == 0) {
+          vertx.setPeriodic(PARTITION_ROTATE_INTERVAL_SECONDS * 1000, new RotatePartitionHandler(timerRepository));
+          var resumeGroupDeletionHandler = new ResumeGroupDeletionHandler(timerService);
+          resumeGroupDeletionHandler.handle(null);
+          vertx.setPeriodic(SCAN_INTERVAL_SECONDS * 1000, resumeGroupDeletionHandler);
+        }
+        if (leasedShardOwner != null) {
+          long leaseTtlMillis = config().getLong("leaseTtlMillis", 15000L);
+          var renewShardLeaseHandler = new RenewShardLeaseHandler(
+            timerRepository,
+            leasedShardOwner,
+            config().getString("nodeId", deploymentID()) + "-" + instance,
+            leaseTtlMillis,
+            v -> {
+              scanWaitingTimerHandler.handle(null);
+              prefetchTimerHandler.handle(null);
+            }
+          );
+          renewShardLeaseHandler.handle(null);
+          vertx.setPeriodic(leaseTtlMillis / 3, renewShardLeaseHandler);
+        }
+
+        if (embeddedTimerRepository != null) {
+          embeddedTimerRepository.timerHandler(prefetchTimerHandler::schedule);
+          prefetchTimerHandler.handle(null);
+        } else {
+          PgTimerSubscriber.create(vertx, repositoryConfig)
+            .shardFilter(shardOwner::owns)
+            .definitionHandler(json -> {
+              Optional.ofNullable(json.getString("definitionId")).map(UUID::fromString).ifPresent(timerRepository::invalidate);
+              Optional.ofNullable(json.getString("groupId")).ifPresent(timerRepository::invalidateGroup);
+            })
+            .subscribe(prefetchTimerHandler::schedule, v -> {
+              timerRepository.invalidateAll();
+              prefetchTimerHandler.handle(null);
+            });
+        }
+      })
+      .onComplete(this.resultHandler(startPromise));
+  }
+
+  private Future<Void> deployDispatchers(int dispatchers, JsonObject dispatchConfig, JsonObject requesterConfig) {
+    if (dispatchers <= 0) {
+      return Future.succeededFuture();
+    }
 
-    vertx.setPeriodic(MIN_INTERVAL_SECONDS * 1000, new ScanWaitingTimerHandler(timerRepository, timerService));
+    var options = new DeploymentOptions()
+      .setInstances(dispatchers)
+      .setThreadingModel(ThreadingModel.valueOf(dispatchConfig.getString("threadingModel", "EVENT_LOOP")))
+      .setConfig(requesterConfig);
+    return vertx.deployVerticle(DispatcherVerticle::new, options).mapEmpty();
   }
 
   private Router initRouter(TimerService timerService) {
@@ -45,10 +193,16 @@ public class MainVerticle extends AbstractVerticle {
         event.response().end(toJsonText(failure));
       });
 
+    router.get("/api/v1/timer").handler(new ListTimerHandler(timerService));
     router.post("/api/v1/timer").handler(new CreateTimerHandler(timerService));
+    router.get("/api/v1/timer/:definitionId/executions").handler(new ListTimerExecutionHandler(timerService));
     router.delete("/api/v1/timer/:definitionId").handler(new DeleteTimerHandler(timerService));
     router.post("/api/v1/group-timer").handler(new CreateGroupTimerHandler(timerService));
+    router.get("/api/v1/group-timer/:groupId/timers").handler(new ListTimerHandler(timerService));
     router.delete("/api/v1/group-timer/:groupId").handler(new DeleteGroupTimerHandler(timerService));
+    router.get("/api/v1/group-deletion/:deletionId").handler(new GetGroupDeletionHandler(timerService));
+    router.get("/api/v1/dead-timer").handler(new ListDeadTimerHandler(timerService));
+    router.get("/metrics").handler(PrometheusScrapingHandler.create());
 
     return router;
   }
@@ -0,0 +1,29 @@
+package clockworks.domain;
+
+public class CallPermit {
+  private final String url;
+  private final Destination destination;
+  private final boolean trial;
+  private boolean released;
+
+  CallPermit(String url, Destination destination, boolean trial) {
+    this.url = url;
+    this.destination = destination;
+    this.trial = trial;
+  }
+
+  public String url() {
+    return url;
+  }
+
+  public void release() {
+    this.release(null);
+  }
+
+  void release(CallResult result) {
+    if (!released) {
+      released = true;
+      destination.release(trial, result, System.currentTimeMillis());
+    }
+  }
+}
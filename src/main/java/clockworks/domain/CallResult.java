@@ -0,0 +1,9 @@
+package clockworks.domain;
+
+public enum CallResult {
+  SUCCESS,
+  RETRYABLE_FAILURE,
+  PERMANENT_FAILURE,
+  // refused by the local limits of the destination, without calling it
+  REJECTED,
+}
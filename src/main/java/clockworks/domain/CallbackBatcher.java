@@ -0,0 +1,85 @@
+package clockworks.domain;
+
+import clockworks.infrastructure.struct.TimerDTO;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CallbackBatcher {
+  private final Logger logger = LoggerFactory.getLogger(CallbackBatcher.class);
+  private final Vertx vertx;
+  private final Requester requester;
+  private final long windowMillis;
+  private final int maxBatchSize;
+  private final Map<String, Batch> pending = new HashMap<>();
+
+  public CallbackBatcher(Vertx vertx,
+                         Requester requester,
+                         long windowMillis,
+                         int maxBatchSize) {
+    this.vertx = vertx;
+    this.requester = requester;
+    this.windowMillis = windowMillis;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public Future<CallResult> submit(String url, TimerDTO timerDTO) {
+    var batch = pending.get(url);
+    if (batch == null) {
+      var created = new Batch(url);
+      created.flushTimerId = vertx.setTimer(windowMillis, l -> this.flush(created));
+      pending.put(url, created);
+      batch = created;
+    }
+
+    var promise = Promise.<CallResult>promise();
+    batch.timers.add(timerDTO);
+    batch.promises.add(promise);
+
+    if (batch.timers.size() >= maxBatchSize) {
+      vertx.cancelTimer(batch.flushTimerId);
+      this.flush(batch);
+    }
+
+    return promise.future();
+  }
+
+  private void flush(Batch batch) {
+    if (!pending.remove(batch.url, batch)) {
+      return;
+    }
+
+    var permit = requester.tryAcquire(batch.url);
+    if (permit.isEmpty()) {
+      logger.warn("batch call rejected {} with {} timers", batch.url, batch.timers.size());
+      batch.promises.forEach(promise -> promise.complete(CallResult.REJECTED));
+      return;
+    }
+
+    requester.callBatch(permit.get(), batch.timers)
+      .onSuccess(results -> {
+        for (int i = 0; i < batch.timers.size(); i++) {
+          batch.promises.get(i).complete(results.get(batch.timers.get(i).timerId()));
+        }
+      })
+      .onFailure(event -> batch.promises.forEach(promise -> promise.tryFail(event)));
+  }
+
+  private static class Batch {
+    private final String url;
+    private final List<TimerDTO> timers = new ArrayList<>();
+    private final List<Promise<CallResult>> promises = new ArrayList<>();
+    private long flushTimerId;
+
+    private Batch(String url) {
+      this.url = url;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package clockworks.domain;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+@FunctionalInterface
+public interface CallbackSender {
+  Future<HttpResponse<Buffer>> send(String url, Object body);
+
+  /**
+   * Sends only if a pooled connection is obtained within {@code connectTimeoutMillis}, wait queue included.
+   */
+  default Future<HttpResponse<Buffer>> send(String url, Object body, long connectTimeoutMillis) {
+    return this.send(url, body);
+  }
+
+  static CallbackSender webClient(Vertx vertx, JsonObject config) {
+    var options = new WebClientOptions()
+      .setUserAgent("clockworks")
+      .setConnectTimeout(config.getInteger("connectTimeoutMillis", 2000))
+      .setIdleTimeout(config.getInteger("idleTimeoutSeconds", 60))
+      .setKeepAlive(true)
+      .setKeepAliveTimeout(config.getInteger("keepAliveTimeoutSeconds", 60))
+      .setMaxPoolSize(config.getInteger("maxPoolSize", 32))
+      .setPipelining(config.getBoolean("pipelining", true))
+      .setPipeliningLimit(config.getInteger("pipeliningLimit", 10))
+      .setMaxWaitQueueSize(config.getInteger("maxWaitQueueSize", 1024));
+
+    if (config.getBoolean("http2", false)) {
+      options
+        .setProtocolVersion(HttpVersion.HTTP_2)
+        .setUseAlpn(true)
+        .setHttp2ClearTextUpgrade(false)
+        .setHttp2MaxPoolSize(config.getInteger("http2MaxPoolSize", 1))
+        .setHttp2MultiplexingLimit(config.getInteger("http2MultiplexingLimit", 100));
+    }
+
+    var webClient = WebClient.create(vertx, options);
+    long responseTimeoutMillis = config.getLong("responseTimeoutMillis", 5000L);
+    return new CallbackSender() {
+      @Override
+      public Future<HttpResponse<Buffer>> send(String url, Object body) {
+        return this.send(url, body, responseTimeoutMillis);
+      }
+
+      @Override
+      public Future<HttpResponse<Buffer>> send(String url, Object body, long connectTimeoutMillis) {
+        return webClient.postAbs(url)
+          .connectTimeout(connectTimeoutMillis)
+          .idleTimeout(responseTimeoutMillis)
+          .sendJson(body);
+      }
+    };
+  }
+}
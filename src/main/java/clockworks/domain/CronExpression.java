@@ -0,0 +1,333 @@
+package clockworks.domain;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class CronExpression {
+  private static final int CACHE_SIZE = 10000;
+  private static final Map<String, CronExpression> CACHE = new ConcurrentHashMap<>();
+  private static final Map<String, String> MACROS = Map.of(
+    "@yearly", "0 0 1 1 *",
+    "@annually", "0 0 1 1 *",
+    "@monthly", "0 0 1 * *",
+    "@weekly", "0 0 * * 0",
+    "@daily", "0 0 * * *",
+    "@midnight", "0 0 * * *",
+    "@hourly", "0 * * * *"
+  );
+  private static final String[] MONTH_NAMES = {
+    "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"
+  };
+  private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+  private static final int MAX_YEARS = 9;
+
+  private final String expression;
+  private final long minutes;
+  private final long hours;
+  private final long daysOfMonth;
+  private final long months;
+  private final long daysOfWeek;
+  private final boolean anyDayOfMonth;
+  private final boolean anyDayOfWeek;
+
+  private CronExpression(String expression,
+                         long minutes,
+                         long hours,
+                         long daysOfMonth,
+                         long months,
+                         long daysOfWeek,
+                         boolean anyDayOfMonth,
+                         boolean anyDayOfWeek) {
+    this.expression = expression;
+    this.minutes = minutes;
+    this.hours = hours;
+    this.daysOfMonth = daysOfMonth;
+    this.months = months;
+    this.daysOfWeek = daysOfWeek;
+    this.anyDayOfMonth = anyDayOfMonth;
+    this.anyDayOfWeek = anyDayOfWeek;
+  }
+
+  public static CronExpression compile(String expression) {
+    var compiled = CACHE.get(expression);
+    if (compiled != null) {
+      return compiled;
+    }
+
+    compiled = parse(expression);
+    if (CACHE.size() >= CACHE_SIZE) {
+      CACHE.clear();
+    }
+    CACHE.put(expression, compiled);
+    return compiled;
+  }
+
+  public static CronExpression parse(String expression) {
+    var text = expression.trim();
+    text = MACROS.getOrDefault(text.toLowerCase(Locale.ROOT), text);
+    var fields = text.split("\\s+");
+    if (fields.length != 5) {
+      throw new IllegalArgumentException("expected 5 fields in cron expression \"%s\"".formatted(expression));
+    }
+
+    var daysOfWeek = parseField(fields[4], 0, 7, DAY_NAMES, 0);
+    // 7 is Sunday too
+    if ((daysOfWeek & 1L << 7) != 0) {
+      daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7);
+    }
+
+    var cronExpression = new CronExpression(
+      expression,
+      parseField(fields[0], 0, 59, null, 0),
+      parseField(fields[1], 0, 23, null, 0),
+      parseField(fields[2], 1, 31, null, 0),
+      parseField(fields[3], 1, 12, MONTH_NAMES, 1),
+      daysOfWeek,
+      isUnrestricted(fields[2]),
+      isUnrestricted(fields[4])
+    );
+    if (!cronExpression.canFire()) {
+      throw new IllegalArgumentException("cron expression \"%s\" never fires".formatted(expression));
+    }
+    return cronExpression;
+  }
+
+  public String expression() {
+    return expression;
+  }
+
+  public OffsetDateTime next(OffsetDateTime after, ZoneId zone) {
+    var local = after.atZoneSameInstant(zone).toLocalDateTime().withSecond(0).withNano(0).plusMinutes(1);
+    var year = local.getYear();
+    var month = local.getMonthValue();
+    var day = local.getDayOfMonth();
+    var hour = local.getHour();
+    var minute = local.getMinute();
+    var lastYear = year + MAX_YEARS;
+
+    while (year <= lastYear) {
+      var nextMonth = nextBit(months, month);
+      if (nextMonth != month) {
+        if (nextMonth < 0) {
+          year++;
+          nextMonth = Long.numberOfTrailingZeros(months);
+        }
+        month = nextMonth;
+        day = 1;
+        hour = 0;
+        minute = 0;
+      }
+
+      var length = lengthOfMonth(year, month);
+      var dayOfWeek = dayOfWeek(year, month, day);
+      while (day <= length && !this.matchesDay(day, dayOfWeek)) {
+        day++;
+        dayOfWeek = (dayOfWeek + 1) % 7;
+        hour = 0;
+        minute = 0;
+      }
+      if (day > length) {
+        month++;
+        if (month > 12) {
+          year++;
+          month = 1;
+        }
+        day = 1;
+        continue;
+      }
+
+      var nextHour = nextBit(hours, hour);
+      if (nextHour < 0) {
+        day = this.nextDay(year, month, day);
+        hour = 0;
+        minute = 0;
+        if (day < 0) {
+          month++;
+          if (month > 12) {
+            year++;
+            month = 1;
+          }
+          day = 1;
+        }
+        continue;
+      }
+      if (nextHour != hour) {
+        hour = nextHour;
+        minute = 0;
+      }
+
+      var nextMinute = nextBit(minutes, minute);
+      if (nextMinute < 0) {
+        hour++;
+        minute = 0;
+        if (hour > 23) {
+          day = this.nextDay(year, month, day);
+          hour = 0;
+          if (day < 0) {
+            month++;
+            if (month > 12) {
+              year++;
+              month = 1;
+            }
+            day = 1;
+          }
+        }
+        continue;
+      }
+      minute = nextMinute;
+
+      var fireTime = LocalDateTime.of(year, month, day, hour, minute).atZone(zone);
+      if (!fireTime.toInstant().isAfter(after.toInstant())) {
+        // after lies in the second pass of a repeated hour
+        fireTime = fireTime.withLaterOffsetAtOverlap();
+      }
+      if (fireTime.toInstant().isAfter(after.toInstant())) {
+        return fireTime.toOffsetDateTime();
+      }
+
+      minute++;
+      if (minute > 59) {
+        minute = 0;
+        hour++;
+        if (hour > 23) {
+          hour = 0;
+          day++;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+
+  private boolean matchesDay(int day, int dayOfWeek) {
+    var dayOfMonthMatches = (daysOfMonth & 1L << day) != 0;
+    var dayOfWeekMatches = (daysOfWeek & 1L << dayOfWeek) != 0;
+    if (anyDayOfMonth || anyDayOfWeek) {
+      return dayOfMonthMatches && dayOfWeekMatches;
+    }
+    return dayOfMonthMatches || dayOfWeekMatches;
+  }
+
+  private int nextDay(int year, int month, int day) {
+    var length = lengthOfMonth(year, month);
+    var dayOfWeek = dayOfWeek(year, month, day);
+    for (day++; day <= length; day++) {
+      dayOfWeek = (dayOfWeek + 1) % 7;
+      if (this.matchesDay(day, dayOfWeek)) {
+        return day;
+      }
+    }
+    return -1;
+  }
+
+  private boolean canFire() {
+    if (!anyDayOfWeek) {
+      return true;
+    }
+
+    var firstDay = Long.numberOfTrailingZeros(daysOfMonth);
+    for (var month = nextBit(months, 1); month >= 0; month = nextBit(months, month + 1)) {
+      if (firstDay <= (month == 2 ? 29 : lengthOfMonth(2001, month))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isUnrestricted(String field) {
+    return field.startsWith("*") || field.equals("?");
+  }
+
+  private static boolean isAny(String part) {
+    return part.equals("*") || part.equals("?");
+  }
+
+  private static long parseField(String field, int min, int max, String[] names, int firstName) {
+    var bits = 0L;
+    for (var part : field.split(",", -1)) {
+      var step = 1;
+      var slash = part.indexOf('/');
+      if (slash >= 0) {
+        step = parseNumber(part.substring(slash + 1), field);
+        part = part.substring(0, slash);
+        if (step < 1) {
+          throw new IllegalArgumentException("illegal step in cron field \"%s\"".formatted(field));
+        }
+      }
+
+      int from;
+      int to;
+      if (isAny(part)) {
+        from = min;
+        to = max;
+      } else {
+        var dash = part.indexOf('-');
+        from = parseValue(dash >= 0 ? part.substring(0, dash) : part, names, firstName, field);
+        to = dash >= 0 ? parseValue(part.substring(dash + 1), names, firstName, field) : slash >= 0 ? max : from;
+      }
+      if (from < min || to > max || from > to) {
+        throw new IllegalArgumentException("cron field \"%s\" out of range %d-%d".formatted(field, min, max));
+      }
+
+      for (var value = from; value <= to; value += step) {
+        bits |= 1L << value;
+      }
+    }
+    return bits;
+  }
+
+  private static int parseValue(String value, String[] names, int firstName, String field) {
+    if (names != null) {
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].equalsIgnoreCase(value)) {
+          return i + firstName;
+        }
+      }
+    }
+    return parseNumber(value, field);
+  }
+
+  private static int parseNumber(String value, String field) {
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("illegal value \"%s\" in cron field \"%s\"".formatted(value, field));
+    }
+  }
+
+  private static int nextBit(long bits, int from) {
+    if (from > 63) {
+      return -1;
+    }
+
+    var remaining = bits & -1L << from;
+    return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    return switch (month) {
+      case 2 -> Year.isLeap(year) ? 29 : 28;
+      case 4, 6, 9, 11 -> 30;
+      default -> 31;
+    };
+  }
+
+  private static int dayOfWeek(int year, int month, int day) {
+    if (month < 3) {
+      month += 12;
+      year--;
+    }
+    var h = (day + 13 * (month + 1) / 5 + year + year / 4 - year / 100 + year / 400) % 7;
+    // h counts from Saturday
+    return (h + 6) % 7;
+  }
+}
@@ -0,0 +1,127 @@
+package clockworks.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+public class Destination {
+  private final Logger logger = LoggerFactory.getLogger(Destination.class);
+  private final String host;
+  private final int maxConcurrent;
+  private final double ratePerSecond;
+  private final double burst;
+  private final int failureThreshold;
+  private final long openMillis;
+
+  private int inFlight;
+  private double tokens;
+  private long refilledAt;
+  private CircuitState state = CircuitState.CLOSED;
+  private int failures;
+  private long openedAt;
+  private boolean trialInFlight;
+
+  public Destination(String host,
+                     int maxConcurrent,
+                     double ratePerSecond,
+                     double burst,
+                     int failureThreshold,
+                     long openMillis) {
+    this.host = host;
+    this.maxConcurrent = maxConcurrent;
+    this.ratePerSecond = ratePerSecond;
+    this.burst = burst;
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+    this.tokens = burst;
+    this.refilledAt = System.currentTimeMillis();
+  }
+
+  public Optional<CallPermit> tryAcquire(String url, long nowMillis) {
+    if (state == CircuitState.OPEN) {
+      if (nowMillis - openedAt < openMillis) {
+        return Optional.empty();
+      }
+      logger.info("circuit half open {}", host);
+      state = CircuitState.HALF_OPEN;
+    }
+
+    if (state == CircuitState.HALF_OPEN && trialInFlight) {
+      return Optional.empty();
+    }
+
+    if (inFlight >= maxConcurrent) {
+      return Optional.empty();
+    }
+
+    if (ratePerSecond > 0) {
+      this.refill(nowMillis);
+      if (tokens < 1) {
+        return Optional.empty();
+      }
+      tokens -= 1;
+    }
+
+    inFlight++;
+    var trial = state == CircuitState.HALF_OPEN;
+    if (trial) {
+      trialInFlight = true;
+    }
+    return Optional.of(new CallPermit(url, this, trial));
+  }
+
+  void release(boolean trial, CallResult result, long nowMillis) {
+    inFlight--;
+    if (trial) {
+      trialInFlight = false;
+    }
+    if (result == null) {
+      return;
+    }
+
+    if (result == CallResult.RETRYABLE_FAILURE) {
+      failures++;
+      if (state == CircuitState.HALF_OPEN || (state == CircuitState.CLOSED && failures >= failureThreshold)) {
+        logger.warn("circuit open {} after {} failures", host, failures);
+        state = CircuitState.OPEN;
+        openedAt = nowMillis;
+      }
+      return;
+    }
+
+    if (state != CircuitState.CLOSED) {
+      logger.info("circuit closed {}", host);
+    }
+    failures = 0;
+    state = CircuitState.CLOSED;
+  }
+
+  public long retryAfterMillis(long nowMillis) {
+    if (state == CircuitState.OPEN) {
+      return Math.max(0, openedAt + openMillis - nowMillis);
+    }
+
+    if (ratePerSecond > 0) {
+      this.refill(nowMillis);
+      if (tokens < 1) {
+        return (long) Math.ceil((1 - tokens) * 1000 / ratePerSecond);
+      }
+    }
+
+    return 0;
+  }
+
+  private void refill(long nowMillis) {
+    if (nowMillis > refilledAt) {
+      tokens = Math.min(burst, tokens + (nowMillis - refilledAt) * ratePerSecond / 1000);
+      refilledAt = nowMillis;
+    }
+  }
+
+  private enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN,
+  }
+}
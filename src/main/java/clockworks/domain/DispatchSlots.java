@@ -0,0 +1,48 @@
+package clockworks.domain;
+
+import clockworks.infrastructure.Meters;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.vertx.core.Handler;
+
+/**
+ * Timers claimed and not yet settled, bounded by the dispatch capacity. Must be used from the owning event loop.
+ */
+public class DispatchSlots {
+  private final int capacity;
+  private int used;
+  private boolean starved;
+  private int resumeAt;
+  private Handler<Void> freeHandler;
+
+  public DispatchSlots(int capacity, int instance) {
+    this.capacity = capacity;
+    Gauge.builder("clockworks.dispatch.in.flight", this, slots -> slots.used)
+      .description("Timers claimed and not yet settled")
+      .tags(Tags.of("instance", String.valueOf(instance)))
+      .register(Meters.registry());
+  }
+
+  public int tryAcquire(int max) {
+    var acquired = Math.min(max, capacity - used);
+    used += acquired;
+    if (acquired < max) {
+      starved = true;
+    }
+    return acquired;
+  }
+
+  public void release(int count) {
+    used -= count;
+    if (starved && freeHandler != null && capacity - used >= resumeAt) {
+      starved = false;
+      freeHandler.handle(null);
+    }
+  }
+
+  public DispatchSlots freeHandler(int count, Handler<Void> handler) {
+    this.resumeAt = Math.min(count, capacity);
+    this.freeHandler = handler;
+    return this;
+  }
+}
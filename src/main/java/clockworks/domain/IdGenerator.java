@@ -0,0 +1,24 @@
+package clockworks.domain;
+
+import java.util.UUID;
+
+@FunctionalInterface
+public interface IdGenerator {
+  UUID next();
+
+  static IdGenerator random() {
+    return UUID::randomUUID;
+  }
+
+  static IdGenerator timeOrdered() {
+    return TimeOrderedIdGenerator.INSTANCE;
+  }
+
+  static IdGenerator of(String name) {
+    return switch (name) {
+      case "uuidv7" -> timeOrdered();
+      case "random" -> random();
+      default -> throw new IllegalArgumentException("unknown id generator " + name);
+    };
+  }
+}
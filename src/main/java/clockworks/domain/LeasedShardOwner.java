@@ -0,0 +1,20 @@
+package clockworks.domain;
+
+/**
+ * Owns the shards leased at the last successful heartbeat, and none once that lease may have expired.
+ */
+public class LeasedShardOwner implements ShardOwner {
+  private static final int[] NONE = new int[0];
+  private int[] shards = NONE;
+  private long validUntil;
+
+  public void update(int[] shards, long validUntil) {
+    this.shards = shards;
+    this.validUntil = validUntil;
+  }
+
+  @Override
+  public int[] shards() {
+    return System.currentTimeMillis() < validUntil ? shards : NONE;
+  }
+}
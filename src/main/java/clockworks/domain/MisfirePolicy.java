@@ -0,0 +1,7 @@
+package clockworks.domain;
+
+public enum MisfirePolicy {
+  FIRE_ONCE_NOW,
+  FIRE_ALL_MISSED,
+  SKIP_TO_NEXT,
+}
@@ -1,19 +1,200 @@
 package clockworks.domain;
 
+import clockworks.infrastructure.ClientException;
+import clockworks.infrastructure.Meters;
+import clockworks.infrastructure.struct.TimerDTO;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
 public class Requester {
   private final Logger logger = LoggerFactory.getLogger(Requester.class);
 
+  public static Requester create(Vertx vertx, JsonObject config) {
+    return create(config, CallbackSender.webClient(vertx, config));
+  }
+
+  public static Requester create(JsonObject config, CallbackSender sender) {
+    return new Requester(
+      sender,
+      host -> new Destination(
+        host,
+        config.getInteger("maxConcurrentPerHost", 64),
+        config.getDouble("ratePerSecondPerHost", 0.0),
+        config.getDouble("burstPerHost", 100.0),
+        config.getInteger("circuitFailureThreshold", 5),
+        config.getLong("circuitOpenMillis", 30000L)
+      ),
+      config.getLong("rejectedDelayMillis", 1000L)
+    );
+  }
+
+  private static final List<String> SCHEMES = List.of("http", "https");
+
+  private final CallbackSender sender;
+  private final Function<String, Destination> destinationFactory;
+  private final long rejectedDelayMillis;
+  private final Map<String, Destination> destinations = new HashMap<>();
+
+  public Requester(CallbackSender sender,
+                   Function<String, Destination> destinationFactory,
+                   long rejectedDelayMillis) {
+    this.sender = sender;
+    this.destinationFactory = destinationFactory;
+    this.rejectedDelayMillis = rejectedDelayMillis;
+  }
+
   public Future<Void> checkUrl(String url) {
-    logger.info("check {}", url);
+    if (url == null) {
+      return Future.failedFuture(ClientException.illegalRequest("null callback url"));
+    }
+
+    try {
+      var uri = new URI(url);
+      if (uri.getScheme() == null || !SCHEMES.contains(uri.getScheme().toLowerCase()) || uri.getHost() == null) {
+        return Future.failedFuture(ClientException.illegalRequest("illegal callback url %s", url));
+      }
+    } catch (URISyntaxException e) {
+      return Future.failedFuture(ClientException.illegalRequest("illegal callback url %s", url));
+    }
+
     return Future.succeededFuture();
   }
 
-  public Future<Boolean> call(String url) {
-    logger.info("call {}", url);
-    return Future.succeededFuture(true);
+  public Optional<CallPermit> tryAcquire(String url) {
+    var permit = this.destination(url).tryAcquire(url, System.currentTimeMillis());
+    if (permit.isEmpty()) {
+      logger.debug("call rejected {}", url);
+    }
+
+    return permit;
+  }
+
+  public long retryAfterMillis(String url) {
+    return Math.max(rejectedDelayMillis, this.destination(url).retryAfterMillis(System.currentTimeMillis()));
+  }
+
+  public Future<CallResult> call(CallPermit permit, JsonObject body) {
+    var url = permit.url();
+    logger.debug("call {}", url);
+
+    var sample = Timer.start();
+    Future<CallResult> result;
+    try {
+      result = sender.send(url, body)
+        .map(Requester::classify)
+        .otherwise(event -> {
+          logger.warn("call {} failed: {}", url, event.getMessage());
+          return CallResult.RETRYABLE_FAILURE;
+        });
+    } catch (RuntimeException e) {
+      logger.warn("call {} failed: {}", url, e.getMessage());
+      result = Future.succeededFuture(CallResult.PERMANENT_FAILURE);
+    }
+
+    return result
+      .onSuccess(permit::release)
+      .onSuccess(callResult -> this.recordCall(sample, url, callResult));
+  }
+
+  public Future<Map<UUID, CallResult>> callBatch(CallPermit permit, List<TimerDTO> timers) {
+    var url = permit.url();
+    logger.debug("call {} with {} timers", url, timers.size());
+
+    var body = new JsonArray(timers.stream().map(TimerDTO::jsonObject).toList());
+    var sample = Timer.start();
+    Future<Map<UUID, CallResult>> results;
+    try {
+      results = sender.send(url, body)
+        .map(response -> {
+          var result = classify(response);
+          permit.release(result);
+          this.recordCall(sample, url, result);
+          return batchResults(timers, result, response);
+        });
+    } catch (RuntimeException e) {
+      logger.warn("call {} failed: {}", url, e.getMessage());
+      permit.release(CallResult.PERMANENT_FAILURE);
+      this.recordCall(sample, url, CallResult.PERMANENT_FAILURE);
+      return Future.succeededFuture(batchResults(timers, CallResult.PERMANENT_FAILURE, null));
+    }
+
+    return results.otherwise(event -> {
+      logger.warn("call {} failed: {}", url, event.getMessage());
+      permit.release(CallResult.RETRYABLE_FAILURE);
+      this.recordCall(sample, url, CallResult.RETRYABLE_FAILURE);
+      return batchResults(timers, CallResult.RETRYABLE_FAILURE, null);
+    });
+  }
+
+  private Map<UUID, CallResult> batchResults(List<TimerDTO> timers, CallResult result, HttpResponse<Buffer> response) {
+    JsonObject statuses = null;
+    if (result == CallResult.SUCCESS && response.body() != null && response.body().length() > 0) {
+      try {
+        statuses = response.bodyAsJsonObject();
+      } catch (RuntimeException e) {
+        logger.debug("ignore batch response body: {}", e.getMessage());
+      }
+    }
+
+    var results = new HashMap<UUID, CallResult>();
+    for (var timer : timers) {
+      var status = statuses == null ? null : statuses.getValue(timer.timerId().toString());
+      results.put(timer.timerId(), status instanceof Number number ? classify(number.intValue()) : result);
+    }
+    return results;
+  }
+
+  private void recordCall(Timer.Sample sample, String url, CallResult result) {
+    sample.stop(Timer.builder("clockworks.callback")
+      .tag("host", hostOf(url))
+      .tag("outcome", result.name())
+      .publishPercentileHistogram()
+      .register(Meters.registry()));
+  }
+
+  private Destination destination(String url) {
+    return destinations.computeIfAbsent(hostOf(url), destinationFactory);
+  }
+
+  private static String hostOf(String url) {
+    try {
+      var uri = new URI(url);
+      var port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+      return uri.getHost() + ":" + port;
+    } catch (URISyntaxException e) {
+      return url;
+    }
+  }
+
+  private static CallResult classify(HttpResponse<?> response) {
+    return classify(response.statusCode());
+  }
+
+  private static CallResult classify(int status) {
+    if (status >= 200 && status < 300) {
+      return CallResult.SUCCESS;
+    }
+
+    if (status == 408 || status == 425 || status == 429 || status >= 500) {
+      return CallResult.RETRYABLE_FAILURE;
+    }
+
+    return CallResult.PERMANENT_FAILURE;
   }
 }
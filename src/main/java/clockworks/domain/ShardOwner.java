@@ -0,0 +1,16 @@
+package clockworks.domain;
+
+public interface ShardOwner {
+  int SHARDS = 256;
+
+  int[] shards();
+
+  default boolean owns(int shard) {
+    for (int owned : this.shards()) {
+      if (owned == shard) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,25 @@
+package clockworks.domain;
+
+import java.util.stream.IntStream;
+
+public class StaticShardOwner implements ShardOwner {
+  private final int instance;
+  private final int instances;
+  private final int[] shards;
+
+  public StaticShardOwner(int instance, int instances) {
+    this.instance = instance;
+    this.instances = instances;
+    this.shards = IntStream.range(0, SHARDS).filter(shard -> shard % instances == instance).toArray();
+  }
+
+  @Override
+  public int[] shards() {
+    return shards;
+  }
+
+  @Override
+  public boolean owns(int shard) {
+    return shard % instances == instance;
+  }
+}
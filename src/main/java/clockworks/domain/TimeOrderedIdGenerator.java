@@ -0,0 +1,43 @@
+package clockworks.domain;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version 7 UUIDs. Each thread keeps its own sequence and random source, so generating an id takes no lock, and ids
+ * from one thread are strictly increasing.
+ */
+public final class TimeOrderedIdGenerator implements IdGenerator {
+  static final TimeOrderedIdGenerator INSTANCE = new TimeOrderedIdGenerator();
+
+  private static final long SEQUENCE_MASK = 0xfffL;
+  private static final ThreadLocal<long[]> LAST = ThreadLocal.withInitial(() -> new long[]{-1, 0});
+
+  private TimeOrderedIdGenerator() {
+  }
+
+  @Override
+  public UUID next() {
+    var last = LAST.get();
+    var random = ThreadLocalRandom.current();
+    var millis = System.currentTimeMillis();
+    var sequence = 0L;
+    if (millis > last[0]) {
+      // the upper half stays free for ids created in the same millisecond
+      sequence = random.nextLong(SEQUENCE_MASK / 2);
+    } else {
+      millis = last[0];
+      sequence = last[1] + 1;
+      if (sequence > SEQUENCE_MASK) {
+        millis++;
+        sequence = 0;
+      }
+    }
+    last[0] = millis;
+    last[1] = sequence;
+
+    var mostSignificantBits = millis << 16 | 0x7000L | sequence;
+    var leastSignificantBits = random.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L;
+    return new UUID(mostSignificantBits, leastSignificantBits);
+  }
+}
@@ -1,10 +1,15 @@
 package clockworks.domain;
 
+import clockworks.infrastructure.struct.GroupDeletionDTO;
 import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
 import clockworks.infrastructure.struct.TimerDTO;
 import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerExecutionDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
 import io.vertx.core.Future;
+import io.vertx.core.streams.WriteStream;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,13 +22,62 @@ public interface TimerRepository {
 
   Future<Void> deleteTimerDefinition(UUID timerId);
 
-  Future<Void> deleteGroup(String groupId);
+  Future<GroupDeletionDTO> startGroupDeletion(String groupId, UUID deletionId);
 
-  Future<Void> save(TimerDTO timerDTO);
+  Future<GroupDeletionDTO> findGroupDeletion(UUID deletionId);
 
-  Future<Void> updateCallResult(UUID timerId, boolean called);
+  default Future<List<GroupDeletionDTO>> findRunningGroupDeletions() {
+    return Future.succeededFuture(List.of());
+  }
+
+  default Future<GroupDeletionDTO> deleteGroupChunk(UUID deletionId, int max) {
+    return this.findGroupDeletion(deletionId);
+  }
+
+  Future<Void> transition(List<TimerTransitionDTO> transitions);
+
+  Future<List<TimerDTO>> findDeadTimers(int max);
+
+  default Future<List<TimerDTO>> lockDueTimers(int[] shards, int max) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
+  default Future<List<TimerDTO>> findWaitingTimers(int[] shards, OffsetDateTime until, int max) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
+  default Future<Integer> countDueTimers(int[] shards, int max) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
+  default Future<List<TimerDTO>> lockTimers(List<UUID> timerIds, OffsetDateTime until) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
+  default Future<Integer> recoverStaleTimers(int[] shards, OffsetDateTime lockedBefore) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
+  default Future<Void> pipeTimerDefinitions(String groupId,
+                                            UUID after,
+                                            int limit,
+                                            WriteStream<TimerDefinitionDTO> destination) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
+  default Future<Void> pipeTimerExecutions(UUID definitionId,
+                                           OffsetDateTime beforeExecutedAt,
+                                           UUID beforeTimerId,
+                                           int limit,
+                                           WriteStream<TimerExecutionDTO> destination) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
+  default Future<Integer> rotatePartitions(OffsetDateTime now) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
 
-  default Future<TimerDTO> lockOneTimer() {
+  default Future<int[]> renewShardLeases(String holder, long ttlMillis) {
     return Future.failedFuture(new UnsupportedOperationException());
   }
 }
@@ -1,28 +1,53 @@
 package clockworks.domain;
 
 import clockworks.infrastructure.ClientException;
+import clockworks.infrastructure.Meters;
 import clockworks.infrastructure.struct.*;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Future;
+import io.vertx.core.streams.WriteStream;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.Supplier;
 
 public class TimerService {
   private final Logger logger = LoggerFactory.getLogger(TimerService.class);
+  private static final int GROUP_DELETION_CHUNK_SIZE = 1000;
   private final int MIN_INTERVAL_SECONDS;
   private final TimerRepository timerRepository;
   private final Requester requester;
+  private final CallbackBatcher callbackBatcher;
+  private final long misfireThresholdMillis;
+  private final IdGenerator idGenerator;
+  private final Set<UUID> runningGroupDeletions = new HashSet<>();
+  private final Timer triggerLateness = Timer.builder("clockworks.trigger.lateness")
+    .description("Time from a timer's trigger time to its dispatch")
+    .publishPercentileHistogram()
+    .register(Meters.registry());
 
   public TimerService(int MIN_INTERVAL_SECONDS,
                       TimerRepository timerRepository,
-                      Requester requester) {
+                      Requester requester,
+                      CallbackBatcher callbackBatcher,
+                      long misfireThresholdMillis,
+                      IdGenerator idGenerator) {
     this.MIN_INTERVAL_SECONDS = MIN_INTERVAL_SECONDS;
     this.timerRepository = timerRepository;
     this.requester = requester;
+    this.callbackBatcher = callbackBatcher;
+    this.misfireThresholdMillis = misfireThresholdMillis;
+    this.idGenerator = idGenerator;
   }
 
   public Future<TimerDefinitionDTO> createTimer(CreateTimerDefinitionArgsDTO argsDTO) {
@@ -47,11 +72,7 @@ public class TimerService {
     return Future.succeededFuture()
       .compose(_v -> this.preCreate(argsDTO, null))
       .compose(definitionDTO -> {
-        var timerDTO = this.firstTimer(
-          definitionDTO.definitionId(),
-          definitionDTO.initialDelaySeconds(),
-          definitionDTO.intervalSeconds()
-        );
+        var timerDTO = this.firstTimer(definitionDTO);
         return timerRepository.save(definitionDTO, timerDTO)
           .map(_v -> {
             logger.info("created timer {}", definitionDTO.definitionId());
@@ -88,7 +109,7 @@ public class TimerService {
           .orElseThrow(() -> ClientException.illegalRequest("too long group name"));
 
         var groupId = Optional.ofNullable(argsDTO.groupId())
-          .orElseGet(() -> UUID.randomUUID().toString());
+          .orElseGet(() -> idGenerator.next().toString());
 
         var groupDescription = Optional.ofNullable(argsDTO.groupDescription())
           .filter(v -> {
@@ -100,15 +121,11 @@ public class TimerService {
 
         return Future.all(argsDTO.timers()
             .stream()
-            .map(v -> this.preCreate(v, argsDTO.groupId()))
+            .map(v -> this.preCreate(v, groupId))
             .toList())
           .compose(v -> {
             List<TimerDefinitionDTO> timerDefinitions = v.list();
-            var timers = timerDefinitions.stream().map(a -> firstTimer(
-              a.definitionId(),
-              a.initialDelaySeconds(),
-              a.intervalSeconds())
-            ).toList();
+            var timers = timerDefinitions.stream().map(this::firstTimer).toList();
 
             var groupTimerDefinitionDTO = new GroupTimerDefinitionDTO(
               groupId,
@@ -120,7 +137,7 @@ public class TimerService {
 
             return timerRepository.save(groupTimerDefinitionDTO, timers)
               .map(unused -> {
-                logger.info("created group timer {}", argsDTO.groupId());
+                logger.info("created group timer {}", groupId);
                 return groupTimerDefinitionDTO;
               });
           });
@@ -139,7 +156,7 @@ public class TimerService {
               throw ClientException.illegalRequest("illegal timer id");
             }
           })
-          .orElseGet(UUID::randomUUID);
+          .orElseGet(idGenerator::next);
 
         var initialDelaySeconds = Optional.of(Objects.requireNonNullElse(argsDTO.initialDelaySeconds(), -1))
           .filter(v -> v == -1 || v >= MIN_INTERVAL_SECONDS)
@@ -149,6 +166,35 @@ public class TimerService {
           .filter(v -> v == -1 || v >= MIN_INTERVAL_SECONDS)
           .orElseThrow(() -> ClientException.illegalRequest("too short an interval"));
 
+        var cronExpression = Optional.ofNullable(argsDTO.cronExpression())
+          .map(v -> {
+            if (intervalSeconds != -1) {
+              throw ClientException.illegalRequest("both interval and cron expression");
+            }
+            if (v.length() > 100) {
+              throw ClientException.illegalRequest("too long a cron expression");
+            }
+            try {
+              return CronExpression.compile(v).expression();
+            } catch (IllegalArgumentException e) {
+              throw ClientException.illegalRequest("illegal cron expression: %s", e.getMessage());
+            }
+          })
+          .orElse(null);
+
+        var timeZone = Optional.ofNullable(argsDTO.timeZone())
+          .map(v -> {
+            if (cronExpression == null) {
+              throw ClientException.illegalRequest("time zone without cron expression");
+            }
+            try {
+              return ZoneId.of(v).getId();
+            } catch (DateTimeException e) {
+              throw ClientException.illegalRequest("illegal time zone");
+            }
+          })
+          .orElse(cronExpression == null ? null : "UTC");
+
         var timerName = Optional.of(Objects.requireNonNullElse(argsDTO.timerName(), randomName()))
           .filter(v -> !v.isBlank() && v.length() <= 30)
           .orElseThrow(() -> ClientException.illegalRequest("too short a timer name"));
@@ -161,6 +207,21 @@ public class TimerService {
             return true;
           }).orElse(null);
 
+        var retryPolicy = Optional.ofNullable(argsDTO.retryPolicy())
+          .map(v -> {
+            if (v.maxAttempts() < 1 || v.maxAttempts() > 100) {
+              throw ClientException.illegalRequest("illegal retry max attempts");
+            }
+            if (v.baseDelayMillis() < 100 || v.maxDelayMillis() < v.baseDelayMillis()) {
+              throw ClientException.illegalRequest("illegal retry delay");
+            }
+            if (v.jitter() < 0 || v.jitter() > 1) {
+              throw ClientException.illegalRequest("illegal retry jitter");
+            }
+            return v;
+          })
+          .orElse(RetryPolicyDTO.DEFAULT);
+
         return new TimerDefinitionDTO(
           timerId,
           Optional.ofNullable(groupId).orElseGet(timerId::toString),
@@ -170,6 +231,11 @@ public class TimerService {
           intervalSeconds,
           argsDTO.fixedRate(),
           argsDTO.callbackUrl(),
+          argsDTO.batchCallback(),
+          retryPolicy,
+          Objects.requireNonNullElse(argsDTO.misfirePolicy(), MisfirePolicy.FIRE_ONCE_NOW),
+          cronExpression,
+          timeZone,
           OffsetDateTime.now()
         );
       });
@@ -197,69 +263,309 @@ public class TimerService {
     });
   }
 
-  public Future<Void> deleteGroup(String groupId) {
-    return timerRepository.deleteGroup(groupId)
-      .onSuccess(v -> logger.info("deleted group {}", groupId));
+  public Future<GroupDeletionDTO> deleteGroup(String groupId) {
+    return timerRepository.startGroupDeletion(groupId, idGenerator.next())
+      .onSuccess(deletionDTO -> {
+        logger.info("deleting group {}, deletion {}", groupId, deletionDTO.deletionId());
+        this.completeGroupDeletion(deletionDTO);
+      });
+  }
+
+  public Future<GroupDeletionDTO> findGroupDeletion(String deletionIdText) {
+    return Future.succeededFuture().compose(_v -> {
+      UUID deletionId;
+      try {
+        deletionId = UUID.fromString(Objects.requireNonNull(deletionIdText));
+      } catch (IllegalArgumentException | NullPointerException e) {
+        throw ClientException.illegalRequest("illegal deletion id");
+      }
+      return timerRepository.findGroupDeletion(deletionId);
+    });
+  }
+
+  public Future<Void> resumeGroupDeletions() {
+    return timerRepository.findRunningGroupDeletions()
+      .onSuccess(deletions -> deletions.forEach(this::completeGroupDeletion))
+      .mapEmpty();
+  }
+
+  private void completeGroupDeletion(GroupDeletionDTO deletionDTO) {
+    if (deletionDTO.finished() || !runningGroupDeletions.add(deletionDTO.deletionId())) {
+      return;
+    }
+
+    this.deleteGroupChunks(deletionDTO)
+      .onSuccess(v -> {
+        if (v.finished()) {
+          logger.info("deleted group {}, {} definitions", v.groupId(), v.deletedDefinitions());
+        }
+      })
+      .onFailure(event -> logger.error("delete group {} failed", deletionDTO.groupId(), event))
+      .onComplete(v -> runningGroupDeletions.remove(deletionDTO.deletionId()));
+  }
+
+  /**
+   * Stops without finishing when a chunk deletes nothing: the rest of the group is locked by another instance.
+   */
+  private Future<GroupDeletionDTO> deleteGroupChunks(GroupDeletionDTO deletionDTO) {
+    return timerRepository.deleteGroupChunk(deletionDTO.deletionId(), GROUP_DELETION_CHUNK_SIZE)
+      .compose(v -> v.finished() || v.deletedDefinitions() == deletionDTO.deletedDefinitions()
+        ? Future.succeededFuture(v)
+        : this.deleteGroupChunks(v));
+  }
+
+  public Future<Void> pipeTimers(String groupId,
+                                 String afterText,
+                                 int limit,
+                                 WriteStream<TimerDefinitionDTO> destination) {
+    return Future.succeededFuture().compose(_v -> {
+      var after = parseCursorId(afterText);
+      return timerRepository.pipeTimerDefinitions(groupId, after, limit, destination);
+    });
+  }
+
+  public Future<Void> pipeExecutions(String definitionIdText,
+                                     String beforeExecutedAtText,
+                                     String beforeTimerIdText,
+                                     int limit,
+                                     WriteStream<TimerExecutionDTO> destination) {
+    return Future.succeededFuture().compose(_v -> {
+      UUID definitionId;
+      try {
+        definitionId = UUID.fromString(Objects.requireNonNull(definitionIdText));
+      } catch (IllegalArgumentException | NullPointerException e) {
+        throw ClientException.illegalRequest("illegal timer id");
+      }
+
+      var beforeTimerId = parseCursorId(beforeTimerIdText);
+      if (beforeExecutedAtText == null) {
+        if (beforeTimerId != null) {
+          throw ClientException.illegalRequest("cursor timer id without execution time");
+        }
+        return timerRepository.pipeTimerExecutions(definitionId, null, null, limit, destination);
+      }
+
+      OffsetDateTime beforeExecutedAt;
+      try {
+        beforeExecutedAt = beforeExecutedAtText.contains("T")
+          ? OffsetDateTime.parse(beforeExecutedAtText)
+          : fromEpochSeconds(new BigDecimal(beforeExecutedAtText));
+      } catch (DateTimeException | ArithmeticException | NumberFormatException e) {
+        throw ClientException.illegalRequest("illegal cursor execution time");
+      }
+      return timerRepository.pipeTimerExecutions(definitionId, beforeExecutedAt, beforeTimerId, limit, destination);
+    });
   }
 
-  public Future<Void> onTriggered(TimerDTO timerDTO) {
-    logger.info("triggering timer {}", timerDTO.definitionId());
+  private static UUID parseCursorId(String text) {
+    if (text == null) {
+      return null;
+    }
+
+    try {
+      return UUID.fromString(text);
+    } catch (IllegalArgumentException e) {
+      throw ClientException.illegalRequest("illegal cursor id");
+    }
+  }
+
+  private static OffsetDateTime fromEpochSeconds(BigDecimal epochSeconds) {
+    var seconds = epochSeconds.setScale(0, RoundingMode.FLOOR);
+    var nanos = epochSeconds.subtract(seconds).movePointRight(9).intValue();
+    return Instant.ofEpochSecond(seconds.longValueExact(), nanos).atOffset(ZoneOffset.UTC);
+  }
+
+  public Future<List<TimerDTO>> findDeadTimers(int limit) {
+    return timerRepository.findDeadTimers(limit);
+  }
+
+  /**
+   * @return per timer, its outcome stored as soon as its callback settled
+   */
+  public List<Future<Void>> onTriggered(List<TimerDTO> timers) {
+    return timers.stream()
+      .map(timerDTO -> this.trigger(timerDTO)
+        .compose(transition -> timerRepository.transition(List.of(transition)))
+        .onFailure(event -> logger.error("triggered failed {}", timerDTO.timerId(), event)))
+      .toList();
+  }
+
+  private Future<TimerTransitionDTO> trigger(TimerDTO timerDTO) {
+    logger.info("triggering timer {} attempt {}", timerDTO.definitionId(), timerDTO.attempt());
+    triggerLateness.record(Duration.between(timerDTO.triggerTime(), OffsetDateTime.now()));
 
     return timerRepository.findById(timerDTO.definitionId())
       .compose(timerDefinitionDTO -> {
-        if (timerDefinitionDTO.fixedRate()) {
-          return this.call(timerDTO.timerId(), timerDefinitionDTO)
-            .compose(unused -> this.createNextTimer(timerDefinitionDTO));
-        } else {
-          return this.createNextTimer(timerDefinitionDTO)
-            .compose(unused -> this.call(timerDTO.timerId(), timerDefinitionDTO));
+        if (timerDefinitionDTO.misfirePolicy() == MisfirePolicy.SKIP_TO_NEXT && this.misfired(timerDTO.triggerTime())) {
+          logger.info("skip missed timer {} of {}", timerDTO.triggerTime(), timerDTO.definitionId());
+          return Future.succeededFuture(TimerTransitionDTO.skipped(timerDTO, this.nextTimer(timerDefinitionDTO, timerDTO)));
+        }
+
+        if (timerDefinitionDTO.batchCallback()) {
+          return this.call(timerDTO, timerDefinitionDTO,
+            () -> callbackBatcher.submit(timerDefinitionDTO.callbackUrl(), timerDTO));
+        }
+
+        return requester.tryAcquire(timerDefinitionDTO.callbackUrl())
+          .map(permit -> this.call(timerDTO, timerDefinitionDTO,
+              () -> requester.call(permit, timerDTO.jsonObject()))
+            .onComplete(unused -> permit.release()))
+          .orElseGet(() -> Future.succeededFuture(this.rejected(timerDTO, timerDefinitionDTO)));
+      }, event -> {
+        if (event instanceof ClientException) {
+          logger.warn("suspend timer {}, definition {} not found", timerDTO.timerId(), timerDTO.definitionId());
+          return Future.succeededFuture(TimerTransitionDTO.suspended(timerDTO));
         }
+        return Future.failedFuture(event);
       });
   }
 
-  private Future<Void> createNextTimer(TimerDefinitionDTO timerDefinitionDTO) {
-    var nextTimerDTO = nextTimer(
+  private TimerTransitionDTO rejected(TimerDTO timerDTO, TimerDefinitionDTO timerDefinitionDTO) {
+    var retryAfterMillis = requester.retryAfterMillis(timerDefinitionDTO.callbackUrl());
+    var triggerTime = OffsetDateTime.now().plus(Duration.ofMillis(retryAfterMillis));
+    logger.warn("call rejected {} {}, requeue at {}",
       timerDefinitionDTO.definitionId(),
-      timerDefinitionDTO.intervalSeconds()
+      timerDefinitionDTO.callbackUrl(),
+      triggerTime
     );
-    logger.info("next timer {} {}", timerDefinitionDTO.definitionId(), nextTimerDTO.triggerTime());
-    return timerRepository.save(nextTimerDTO);
+    return TimerTransitionDTO.requeue(timerDTO, triggerTime);
   }
 
-  private Future<Void> call(UUID timerId, TimerDefinitionDTO timerDefinitionDTO) {
-    return requester.call(timerDefinitionDTO.callbackUrl()).compose(called -> {
-      if (called) {
+  private Future<TimerTransitionDTO> call(TimerDTO timerDTO,
+                                          TimerDefinitionDTO timerDefinitionDTO,
+                                          Supplier<Future<CallResult>> caller) {
+    var firstNextTimer = !timerDefinitionDTO.followsSchedule() && timerDTO.attempt() == 0
+      ? this.nextTimer(timerDefinitionDTO, timerDTO)
+      : null;
+
+    return caller.get().map(result -> {
+      if (result == CallResult.REJECTED) {
+        return this.rejected(timerDTO, timerDefinitionDTO);
+      }
+
+      if (result == CallResult.SUCCESS) {
         logger.info("call success {} {}",
           timerDefinitionDTO.definitionId(),
           timerDefinitionDTO.callbackUrl()
         );
-        return timerRepository.updateCallResult(timerId, true);
-      } else {
-        logger.warn("call failed {} {}",
+        return TimerTransitionDTO.finished(timerDTO, result,
+          timerDefinitionDTO.followsSchedule() ? this.nextTimer(timerDefinitionDTO, timerDTO) : firstNextTimer);
+      }
+
+      var retryPolicy = timerDefinitionDTO.retryPolicy();
+      var attempt = timerDTO.attempt() + 1;
+      if (result == CallResult.RETRYABLE_FAILURE && attempt < retryPolicy.maxAttempts()) {
+        var triggerTime = OffsetDateTime.now().plus(Duration.ofMillis(retryPolicy.delayMillis(attempt)));
+        logger.warn("call failed {} {} {}, retry {} at {}",
           timerDefinitionDTO.definitionId(),
-          timerDefinitionDTO.callbackUrl()
+          timerDefinitionDTO.callbackUrl(),
+          result,
+          attempt,
+          triggerTime
         );
-        return timerRepository.updateCallResult(timerId, false);
+        return TimerTransitionDTO.retry(timerDTO, result, triggerTime, firstNextTimer);
       }
+
+      logger.warn("call failed {} {} {}, dead after {} attempts",
+        timerDefinitionDTO.definitionId(),
+        timerDefinitionDTO.callbackUrl(),
+        result,
+        attempt
+      );
+      return TimerTransitionDTO.dead(timerDTO, result,
+        timerDefinitionDTO.followsSchedule() ? this.nextTimer(timerDefinitionDTO, timerDTO) : firstNextTimer);
     });
   }
 
-  private TimerDTO nextTimer(UUID definitionId,
-                             int intervalSeconds) {
-    return new TimerDTO(
-      UUID.randomUUID(),
-      definitionId,
-      OffsetDateTime.now().plusSeconds(intervalSeconds)
+  private TimerDTO nextTimer(TimerDefinitionDTO timerDefinitionDTO, TimerDTO timerDTO) {
+    if (timerDefinitionDTO.cronExpression() != null) {
+      return this.nextCronTimer(timerDefinitionDTO, timerDTO);
+    }
+    if (timerDefinitionDTO.intervalSeconds() <= 0) {
+      return null;
+    }
+
+    var now = OffsetDateTime.now();
+    var triggerTime = now.plusSeconds(timerDefinitionDTO.intervalSeconds());
+    if (timerDefinitionDTO.fixedRate()) {
+      var periodMillis = timerDefinitionDTO.intervalSeconds() * 1000L;
+      // the occurrence nearest to one interval later, tolerating a trigger time slightly off the schedule
+      triggerTime = occurrenceAfter(timerDefinitionDTO, timerDTO.triggerTime().plus(Duration.ofMillis(periodMillis / 2)));
+      triggerTime = switch (timerDefinitionDTO.misfirePolicy()) {
+        case FIRE_ALL_MISSED -> triggerTime;
+        case FIRE_ONCE_NOW -> max(triggerTime, occurrenceAfter(timerDefinitionDTO, now));
+        case SKIP_TO_NEXT -> max(triggerTime, occurrenceAfter(timerDefinitionDTO, now.minus(Duration.ofMillis(misfireThresholdMillis))));
+      };
+    }
+
+    var nextTimerDTO = new TimerDTO(
+      idGenerator.next(),
+      timerDefinitionDTO.definitionId(),
+      triggerTime,
+      0
     );
+    logger.info("next timer {} {}", timerDefinitionDTO.definitionId(), nextTimerDTO.triggerTime());
+    return nextTimerDTO;
   }
 
-  private TimerDTO firstTimer(UUID definitionId,
-                              int initialDelaySeconds,
-                              int intervalSeconds) {
+  private TimerDTO nextCronTimer(TimerDefinitionDTO timerDefinitionDTO, TimerDTO timerDTO) {
+    var now = OffsetDateTime.now();
+    var after = switch (timerDefinitionDTO.misfirePolicy()) {
+      case FIRE_ALL_MISSED -> timerDTO.triggerTime();
+      case FIRE_ONCE_NOW -> max(timerDTO.triggerTime(), now);
+      case SKIP_TO_NEXT -> max(timerDTO.triggerTime(), now.minus(Duration.ofMillis(misfireThresholdMillis)));
+    };
+    var triggerTime = nextCronTime(timerDefinitionDTO, after);
+    if (triggerTime == null) {
+      return null;
+    }
+
+    var nextTimerDTO = new TimerDTO(idGenerator.next(), timerDefinitionDTO.definitionId(), triggerTime, 0);
+    logger.info("next timer {} {}", timerDefinitionDTO.definitionId(), nextTimerDTO.triggerTime());
+    return nextTimerDTO;
+  }
+
+  private boolean misfired(OffsetDateTime triggerTime) {
+    return triggerTime.isBefore(OffsetDateTime.now().minus(Duration.ofMillis(misfireThresholdMillis)));
+  }
+
+  private TimerDTO firstTimer(TimerDefinitionDTO timerDefinitionDTO) {
     return new TimerDTO(
-      UUID.randomUUID(),
-      definitionId,
-      OffsetDateTime.now().plusSeconds(initialDelaySeconds + intervalSeconds)
+      idGenerator.next(),
+      timerDefinitionDTO.definitionId(),
+      firstTriggerTime(timerDefinitionDTO),
+      0
     );
   }
+
+  private static OffsetDateTime firstTriggerTime(TimerDefinitionDTO timerDefinitionDTO) {
+    if (timerDefinitionDTO.cronExpression() != null) {
+      return nextCronTime(
+        timerDefinitionDTO,
+        timerDefinitionDTO.updatedAt().plusSeconds(Math.max(timerDefinitionDTO.initialDelaySeconds(), 0))
+      );
+    }
+    return timerDefinitionDTO.updatedAt()
+      .plusSeconds(Math.max(timerDefinitionDTO.initialDelaySeconds(), 0) + Math.max(timerDefinitionDTO.intervalSeconds(), 0));
+  }
+
+  private static OffsetDateTime occurrenceAfter(TimerDefinitionDTO timerDefinitionDTO, OffsetDateTime time) {
+    var first = firstTriggerTime(timerDefinitionDTO);
+    var elapsedMillis = Duration.between(first, time).toMillis();
+    if (elapsedMillis < 0) {
+      return first;
+    }
+
+    var periodMillis = timerDefinitionDTO.intervalSeconds() * 1000L;
+    return first.plus(Duration.ofMillis((elapsedMillis / periodMillis + 1) * periodMillis));
+  }
+
+  private static OffsetDateTime nextCronTime(TimerDefinitionDTO timerDefinitionDTO, OffsetDateTime after) {
+    return CronExpression.compile(timerDefinitionDTO.cronExpression())
+      .next(after, ZoneId.of(timerDefinitionDTO.timeZone()));
+  }
+
+  private static OffsetDateTime max(OffsetDateTime a, OffsetDateTime b) {
+    return a.isAfter(b) ? a : b;
+  }
 }
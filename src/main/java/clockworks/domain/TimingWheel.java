@@ -0,0 +1,103 @@
+package clockworks.domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, driven from a single event loop.
+ */
+public class TimingWheel<T> {
+  private final long tickMs;
+  private final int wheelSize;
+  private final long interval;
+  private final Bucket<T>[] buckets;
+  private final PriorityQueue<Bucket<T>> queue;
+  private long currentTime;
+  private TimingWheel<T> overflowWheel;
+
+  public TimingWheel(long tickMs, int wheelSize, long startMs) {
+    this(tickMs, wheelSize, startMs, new PriorityQueue<>(Comparator.comparingLong(bucket -> bucket.expiration)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private TimingWheel(long tickMs, int wheelSize, long startMs, PriorityQueue<Bucket<T>> queue) {
+    this.tickMs = tickMs;
+    this.wheelSize = wheelSize;
+    this.interval = tickMs * wheelSize;
+    this.buckets = new Bucket[wheelSize];
+    for (int i = 0; i < wheelSize; i++) {
+      this.buckets[i] = new Bucket<>();
+    }
+    this.queue = queue;
+    this.currentTime = startMs - (startMs % tickMs);
+  }
+
+  public boolean add(long expirationMs, T value) {
+    if (expirationMs < currentTime + tickMs) {
+      return false;
+    }
+
+    if (expirationMs < currentTime + interval) {
+      long virtualId = expirationMs / tickMs;
+      var bucket = buckets[(int) (virtualId % wheelSize)];
+      bucket.entries.add(new Entry<>(expirationMs, value));
+      if (bucket.expiration != virtualId * tickMs) {
+        bucket.expiration = virtualId * tickMs;
+        queue.offer(bucket);
+      }
+      return true;
+    }
+
+    return overflowWheel().add(expirationMs, value);
+  }
+
+  public long nextExpiration() {
+    var bucket = queue.peek();
+    return bucket == null ? Long.MAX_VALUE : bucket.expiration;
+  }
+
+  public void advance(long nowMs, Consumer<T> expired) {
+    while (!queue.isEmpty() && queue.peek().expiration <= nowMs) {
+      var bucket = queue.poll();
+      advanceClock(bucket.expiration);
+
+      var entries = bucket.entries;
+      bucket.entries = new ArrayList<>();
+      bucket.expiration = -1;
+      for (var entry : entries) {
+        if (!add(entry.expirationMs, entry.value)) {
+          expired.accept(entry.value);
+        }
+      }
+    }
+
+    advanceClock(nowMs);
+  }
+
+  private void advanceClock(long timeMs) {
+    if (timeMs >= currentTime + tickMs) {
+      currentTime = timeMs - (timeMs % tickMs);
+      if (overflowWheel != null) {
+        overflowWheel.advanceClock(currentTime);
+      }
+    }
+  }
+
+  private TimingWheel<T> overflowWheel() {
+    if (overflowWheel == null) {
+      overflowWheel = new TimingWheel<>(interval, wheelSize, currentTime, queue);
+    }
+    return overflowWheel;
+  }
+
+  private static class Bucket<T> {
+    private List<Entry<T>> entries = new ArrayList<>();
+    private long expiration = -1;
+  }
+
+  private record Entry<T>(long expirationMs, T value) {
+  }
+}
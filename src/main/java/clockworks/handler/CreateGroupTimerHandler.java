@@ -1,6 +1,7 @@
 package clockworks.handler;
 
 import clockworks.domain.TimerService;
+import clockworks.infrastructure.Meters;
 import clockworks.infrastructure.struct.CreateGroupTimerDefinitionArgsDTO;
 import io.vertx.core.Handler;
 import io.vertx.ext.web.RoutingContext;
@@ -18,6 +19,7 @@ public class CreateGroupTimerHandler implements Handler<RoutingContext> {
   public void handle(RoutingContext routingContext) {
     var argsDTO = routingContext.body().asPojo(CreateGroupTimerDefinitionArgsDTO.class);
     timerService.createGroupTimer(argsDTO)
+      .onComplete(ar -> Meters.countRequest("create_group", ar))
       .onSuccess(definitionDTO -> routingContext.response().end(definitionDTO.toString()))
       .onFailure(event -> routingContext.response().end(toJsonText(event)));
   }
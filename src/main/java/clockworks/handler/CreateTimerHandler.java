@@ -1,6 +1,7 @@
 package clockworks.handler;
 
 import clockworks.domain.TimerService;
+import clockworks.infrastructure.Meters;
 import clockworks.infrastructure.struct.CreateTimerDefinitionArgsDTO;
 import io.vertx.core.Handler;
 import io.vertx.ext.web.RoutingContext;
@@ -21,6 +22,7 @@ public class CreateTimerHandler implements Handler<RoutingContext> {
   public void handle(RoutingContext routingContext) {
     var argsDTO = routingContext.body().asPojo(CreateTimerDefinitionArgsDTO.class);
     timerService.createTimer(argsDTO)
+      .onComplete(ar -> Meters.countRequest("create_timer", ar))
       .onSuccess(routingContext::json)
       .onFailure(event -> {
         logger.error("create timer handler failed", event);
@@ -1,9 +1,13 @@
 package clockworks.handler;
 
 import clockworks.domain.TimerService;
+import clockworks.infrastructure.Meters;
 import io.vertx.core.Handler;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.ext.web.RoutingContext;
 
+import static clockworks.infrastructure.Exceptions.toJsonText;
+
 public class DeleteGroupTimerHandler implements Handler<RoutingContext> {
   private final TimerService timerService;
 
@@ -15,6 +19,12 @@ public class DeleteGroupTimerHandler implements Handler<RoutingContext> {
   public void handle(RoutingContext routingContext) {
     var groupId = routingContext.pathParam("groupId");
     timerService.deleteGroup(groupId)
-      .onSuccess(unused -> routingContext.response().end());
+      .onComplete(ar -> Meters.countRequest("delete_group", ar))
+      .onSuccess(deletionDTO -> routingContext.response()
+        .setStatusCode(202)
+        .putHeader(HttpHeaders.LOCATION, "/api/v1/group-deletion/" + deletionDTO.deletionId())
+        .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+        .end(deletionDTO.jsonObject().encode()))
+      .onFailure(event -> routingContext.response().end(toJsonText(event)));
   }
 }
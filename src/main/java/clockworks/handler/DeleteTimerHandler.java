@@ -1,6 +1,7 @@
 package clockworks.handler;
 
 import clockworks.domain.TimerService;
+import clockworks.infrastructure.Meters;
 import io.vertx.core.Handler;
 import io.vertx.ext.web.RoutingContext;
 
@@ -15,6 +16,7 @@ public class DeleteTimerHandler implements Handler<RoutingContext> {
   public void handle(RoutingContext routingContext) {
     var timerId = routingContext.pathParam("definitionId");
     timerService.deleteTimer(timerId)
+      .onComplete(ar -> Meters.countRequest("delete_timer", ar))
       .onSuccess(unused -> routingContext.response().end());
   }
 }
@@ -0,0 +1,22 @@
+package clockworks.handler;
+
+import clockworks.domain.TimerService;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+import static clockworks.infrastructure.Exceptions.toJsonText;
+
+public class GetGroupDeletionHandler implements Handler<RoutingContext> {
+  private final TimerService timerService;
+
+  public GetGroupDeletionHandler(TimerService timerService) {
+    this.timerService = timerService;
+  }
+
+  @Override
+  public void handle(RoutingContext routingContext) {
+    timerService.findGroupDeletion(routingContext.pathParam("deletionId"))
+      .onSuccess(deletionDTO -> routingContext.json(deletionDTO.jsonObject()))
+      .onFailure(event -> routingContext.response().end(toJsonText(event)));
+  }
+}
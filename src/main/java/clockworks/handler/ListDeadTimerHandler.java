@@ -0,0 +1,38 @@
+package clockworks.handler;
+
+import clockworks.domain.TimerService;
+import clockworks.infrastructure.struct.TimerDTO;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.Optional;
+
+import static clockworks.infrastructure.Exceptions.toJsonText;
+
+public class ListDeadTimerHandler implements Handler<RoutingContext> {
+  private static final int MAX_LIMIT = 1000;
+  private final TimerService timerService;
+
+  public ListDeadTimerHandler(TimerService timerService) {
+    this.timerService = timerService;
+  }
+
+  @Override
+  public void handle(RoutingContext routingContext) {
+    int limit;
+    try {
+      limit = Optional.ofNullable(routingContext.queryParams().get("limit"))
+        .map(Integer::parseInt)
+        .map(v -> Math.max(1, Math.min(v, MAX_LIMIT)))
+        .orElse(100);
+    } catch (NumberFormatException e) {
+      routingContext.response().setStatusCode(400).end(toJsonText(e));
+      return;
+    }
+
+    timerService.findDeadTimers(limit)
+      .onSuccess(timers -> routingContext.json(new JsonArray(timers.stream().map(TimerDTO::jsonObject).toList())))
+      .onFailure(event -> routingContext.response().end(toJsonText(event)));
+  }
+}
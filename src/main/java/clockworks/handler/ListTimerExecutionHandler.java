@@ -0,0 +1,53 @@
+package clockworks.handler;
+
+import clockworks.domain.TimerService;
+import clockworks.infrastructure.MappedWriteStream;
+import clockworks.infrastructure.struct.TimerExecutionDTO;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.Optional;
+
+import static clockworks.infrastructure.Exceptions.toJsonText;
+
+public class ListTimerExecutionHandler implements Handler<RoutingContext> {
+  private static final int MAX_LIMIT = 100000;
+  private final TimerService timerService;
+
+  public ListTimerExecutionHandler(TimerService timerService) {
+    this.timerService = timerService;
+  }
+
+  @Override
+  public void handle(RoutingContext routingContext) {
+    int limit;
+    try {
+      limit = Optional.ofNullable(routingContext.queryParams().get("limit"))
+        .map(Integer::parseInt)
+        .map(v -> Math.max(1, Math.min(v, MAX_LIMIT)))
+        .orElse(1000);
+    } catch (NumberFormatException e) {
+      routingContext.response().setStatusCode(400).end(toJsonText(e));
+      return;
+    }
+
+    var response = routingContext.response()
+      .setChunked(true)
+      .putHeader(HttpHeaders.CONTENT_TYPE, "application/x-ndjson");
+    var destination = new MappedWriteStream<TimerExecutionDTO, Buffer>(response,
+      executionDTO -> executionDTO.jsonObject().toBuffer().appendString("\n"));
+    var queryParams = routingContext.queryParams();
+    timerService.pipeExecutions(routingContext.pathParam("definitionId"), queryParams.get("beforeExecutedAt"),
+        queryParams.get("beforeTimerId"), limit, destination)
+      .onFailure(event -> {
+        if (response.headWritten()) {
+          // a truncated page must not pass for a complete one
+          response.reset();
+        } else {
+          response.end(toJsonText(event));
+        }
+      });
+  }
+}
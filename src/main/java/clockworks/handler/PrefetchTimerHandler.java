@@ -0,0 +1,134 @@
+package clockworks.handler;
+
+import clockworks.domain.DispatchSlots;
+import clockworks.domain.ShardOwner;
+import clockworks.domain.TimerRepository;
+import clockworks.domain.TimerService;
+import clockworks.domain.TimingWheel;
+import clockworks.infrastructure.struct.TimerDTO;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public class PrefetchTimerHandler implements Handler<Long> {
+  private final Logger logger = LoggerFactory.getLogger(PrefetchTimerHandler.class);
+  private static final long TICK_MILLIS = 1;
+  private final Vertx vertx;
+  private final TimerRepository timerRepository;
+  private final TimerService timerService;
+  private final ShardOwner shardOwner;
+  private final DispatchSlots dispatchSlots;
+  private final int lookaheadSeconds;
+  private final int prefetchLimit;
+  private final long misfireThresholdMillis;
+  private final TimingWheel<TimerDTO> wheel;
+  private final Set<UUID> scheduled = new HashSet<>();
+  private long wakeUpTimerId = -1;
+  private long wakeUpAt = Long.MAX_VALUE;
+
+  public PrefetchTimerHandler(Vertx vertx,
+                              TimerRepository timerRepository,
+                              TimerService timerService,
+                              ShardOwner shardOwner,
+                              DispatchSlots dispatchSlots,
+                              int lookaheadSeconds,
+                              int prefetchLimit,
+                              long misfireThresholdMillis) {
+    this.vertx = vertx;
+    this.timerRepository = timerRepository;
+    this.timerService = timerService;
+    this.shardOwner = shardOwner;
+    this.dispatchSlots = dispatchSlots;
+    this.lookaheadSeconds = lookaheadSeconds;
+    this.prefetchLimit = prefetchLimit;
+    this.misfireThresholdMillis = misfireThresholdMillis;
+    this.wheel = new TimingWheel<>(TICK_MILLIS, 512, System.currentTimeMillis());
+  }
+
+  @Override
+  public void handle(Long l) {
+    logger.debug("timing prefetch ...");
+    timerRepository.findWaitingTimers(shardOwner.shards(), OffsetDateTime.now().plusSeconds(lookaheadSeconds), prefetchLimit)
+      .onSuccess(timers -> {
+        logger.debug("prefetched {} timers, {} scheduled", timers.size(), scheduled.size());
+        timers.forEach(this::schedule);
+      })
+      .onFailure(event -> logger.error("prefetch failed", event));
+  }
+
+  public void schedule(TimerDTO timerDTO) {
+    var triggerMillis = timerDTO.triggerTime().toInstant().toEpochMilli();
+    if (triggerMillis < System.currentTimeMillis() - misfireThresholdMillis) {
+      return;
+    }
+    if (!scheduled.add(timerDTO.timerId())) {
+      return;
+    }
+
+    if (!wheel.add(triggerMillis, timerDTO)) {
+      this.fire(List.of(timerDTO));
+      return;
+    }
+
+    this.wakeUp();
+  }
+
+  private void wakeUp() {
+    var next = wheel.nextExpiration();
+    if (next >= wakeUpAt) {
+      return;
+    }
+
+    if (wakeUpTimerId != -1) {
+      vertx.cancelTimer(wakeUpTimerId);
+    }
+
+    wakeUpAt = next;
+    wakeUpTimerId = vertx.setTimer(Math.max(1, next - System.currentTimeMillis()), this::tick);
+  }
+
+  private void tick(Long l) {
+    wakeUpTimerId = -1;
+    wakeUpAt = Long.MAX_VALUE;
+
+    var expired = new ArrayList<TimerDTO>();
+    wheel.advance(System.currentTimeMillis(), expired::add);
+    if (!expired.isEmpty()) {
+      this.fire(expired);
+    }
+
+    if (wheel.nextExpiration() != Long.MAX_VALUE) {
+      this.wakeUp();
+    }
+  }
+
+  private void fire(List<TimerDTO> timers) {
+    timers.forEach(timerDTO -> scheduled.remove(timerDTO.timerId()));
+    var reserved = dispatchSlots.tryAcquire(timers.size());
+    if (reserved < timers.size()) {
+      logger.debug("dispatch queue full, {} timers left to the scan", timers.size() - reserved);
+    }
+    if (reserved == 0) {
+      return;
+    }
+
+    var timerIds = timers.stream().limit(reserved).map(TimerDTO::timerId).toList();
+    timerRepository.lockTimers(timerIds, OffsetDateTime.now().plus(Duration.ofMillis(TICK_MILLIS)))
+      .onFailure(event -> dispatchSlots.release(reserved))
+      .onSuccess(locked -> {
+        dispatchSlots.release(reserved - locked.size());
+        timerService.onTriggered(locked)
+          .forEach(triggered -> triggered.onComplete(event -> dispatchSlots.release(1)));
+      })
+      .onFailure(event -> logger.error("lock timers failed", event));
+  }
+}
@@ -0,0 +1,33 @@
+package clockworks.handler;
+
+import clockworks.domain.ShardOwner;
+import clockworks.domain.TimerRepository;
+import io.vertx.core.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+
+public class RecoverStaleTimerHandler implements Handler<Long> {
+  private final Logger logger = LoggerFactory.getLogger(RecoverStaleTimerHandler.class);
+  private final TimerRepository timerRepository;
+  private final ShardOwner shardOwner;
+  private final int lockTimeoutSeconds;
+
+  public RecoverStaleTimerHandler(TimerRepository timerRepository, ShardOwner shardOwner, int lockTimeoutSeconds) {
+    this.timerRepository = timerRepository;
+    this.shardOwner = shardOwner;
+    this.lockTimeoutSeconds = lockTimeoutSeconds;
+  }
+
+  @Override
+  public void handle(Long l) {
+    timerRepository.recoverStaleTimers(shardOwner.shards(), OffsetDateTime.now().minusSeconds(lockTimeoutSeconds))
+      .onSuccess(count -> {
+        if (count > 0) {
+          logger.warn("recovered {} timers locked for more than {}s", count, lockTimeoutSeconds);
+        }
+      })
+      .onFailure(event -> logger.error("recover stale timers failed", event));
+  }
+}
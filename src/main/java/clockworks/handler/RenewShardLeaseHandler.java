@@ -0,0 +1,54 @@
+package clockworks.handler;
+
+import clockworks.domain.LeasedShardOwner;
+import clockworks.domain.TimerRepository;
+import io.vertx.core.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+public class RenewShardLeaseHandler implements Handler<Long> {
+  private final Logger logger = LoggerFactory.getLogger(RenewShardLeaseHandler.class);
+  private final TimerRepository timerRepository;
+  private final LeasedShardOwner shardOwner;
+  private final String holder;
+  private final long leaseTtlMillis;
+  private final Handler<Void> changedHandler;
+  private int[] leased = new int[0];
+  private boolean renewing;
+
+  public RenewShardLeaseHandler(TimerRepository timerRepository,
+                                LeasedShardOwner shardOwner,
+                                String holder,
+                                long leaseTtlMillis,
+                                Handler<Void> changedHandler) {
+    this.timerRepository = timerRepository;
+    this.shardOwner = shardOwner;
+    this.holder = holder;
+    this.leaseTtlMillis = leaseTtlMillis;
+    this.changedHandler = changedHandler;
+  }
+
+  @Override
+  public void handle(Long l) {
+    if (renewing) {
+      logger.debug("shard lease renewal in progress, skipped");
+      return;
+    }
+
+    renewing = true;
+    var renewedAt = System.currentTimeMillis();
+    timerRepository.renewShardLeases(holder, leaseTtlMillis)
+      .onSuccess(shards -> {
+        shardOwner.update(shards, renewedAt + leaseTtlMillis);
+        if (!Arrays.equals(leased, shards)) {
+          logger.info("{} leases {} shards, was {}", holder, shards.length, leased.length);
+          leased = shards;
+          changedHandler.handle(null);
+        }
+      })
+      .onFailure(event -> logger.error("renew shard leases failed", event))
+      .onComplete(v -> renewing = false);
+  }
+}
@@ -0,0 +1,21 @@
+package clockworks.handler;
+
+import clockworks.domain.TimerService;
+import io.vertx.core.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ResumeGroupDeletionHandler implements Handler<Long> {
+  private final Logger logger = LoggerFactory.getLogger(ResumeGroupDeletionHandler.class);
+  private final TimerService timerService;
+
+  public ResumeGroupDeletionHandler(TimerService timerService) {
+    this.timerService = timerService;
+  }
+
+  @Override
+  public void handle(Long l) {
+    timerService.resumeGroupDeletions()
+      .onFailure(event -> logger.error("resume group deletions failed", event));
+  }
+}
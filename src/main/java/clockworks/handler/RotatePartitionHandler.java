@@ -0,0 +1,36 @@
+package clockworks.handler;
+
+import clockworks.domain.TimerRepository;
+import io.vertx.core.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+
+public class RotatePartitionHandler implements Handler<Long> {
+  private final Logger logger = LoggerFactory.getLogger(RotatePartitionHandler.class);
+  private final TimerRepository timerRepository;
+  private boolean rotating;
+
+  public RotatePartitionHandler(TimerRepository timerRepository) {
+    this.timerRepository = timerRepository;
+  }
+
+  @Override
+  public void handle(Long l) {
+    if (rotating) {
+      logger.debug("partition rotation in progress, skipped");
+      return;
+    }
+
+    rotating = true;
+    timerRepository.rotatePartitions(OffsetDateTime.now())
+      .onSuccess(count -> {
+        if (count > 0) {
+          logger.info("retired {} expired partitions", count);
+        }
+      })
+      .onFailure(event -> logger.error("rotate partitions failed", event))
+      .onComplete(v -> rotating = false);
+  }
+}
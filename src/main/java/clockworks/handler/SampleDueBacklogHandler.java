@@ -0,0 +1,44 @@
+package clockworks.handler;
+
+import clockworks.domain.ShardOwner;
+import clockworks.domain.TimerRepository;
+import clockworks.infrastructure.Meters;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.vertx.core.Handler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SampleDueBacklogHandler implements Handler<Long> {
+  private static final int BACKLOG_COUNT_LIMIT = 100000;
+
+  private final Logger logger = LoggerFactory.getLogger(SampleDueBacklogHandler.class);
+  private final TimerRepository timerRepository;
+  private final ShardOwner shardOwner;
+  private final AtomicInteger dueBacklog = new AtomicInteger();
+  private boolean sampling;
+
+  public SampleDueBacklogHandler(TimerRepository timerRepository, ShardOwner shardOwner, int instance) {
+    this.timerRepository = timerRepository;
+    this.shardOwner = shardOwner;
+    Gauge.builder("clockworks.due.backlog", dueBacklog, AtomicInteger::get)
+      .description("Waiting timers already due when last sampled")
+      .tags(Tags.of("instance", String.valueOf(instance)))
+      .register(Meters.registry());
+  }
+
+  @Override
+  public void handle(Long l) {
+    if (sampling) {
+      return;
+    }
+
+    sampling = true;
+    timerRepository.countDueTimers(shardOwner.shards(), BACKLOG_COUNT_LIMIT)
+      .onSuccess(dueBacklog::set)
+      .onFailure(event -> logger.warn("count due timers failed", event))
+      .onComplete(v -> sampling = false);
+  }
+}
@@ -1,34 +1,115 @@
 package clockworks.handler;
 
+import clockworks.domain.DispatchSlots;
+import clockworks.domain.ShardOwner;
 import clockworks.domain.TimerRepository;
 import clockworks.domain.TimerService;
+import clockworks.infrastructure.Meters;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 public class ScanWaitingTimerHandler implements Handler<Long> {
   private final Logger logger = LoggerFactory.getLogger(ScanWaitingTimerHandler.class);
+  private final Vertx vertx;
   private final TimerRepository timerRepository;
   private final TimerService timerService;
+  private final ShardOwner shardOwner;
+  private final DispatchSlots dispatchSlots;
+  private final int batchSize;
+  private final int maxFiresPerSecond;
+  private final Timer scanDuration;
+  private final DistributionSummary scanClaimed;
+  private boolean scanning;
 
-  public ScanWaitingTimerHandler(TimerRepository timerRepository,
-                                 TimerService timerService) {
+  public ScanWaitingTimerHandler(Vertx vertx,
+                                 TimerRepository timerRepository,
+                                 TimerService timerService,
+                                 ShardOwner shardOwner,
+                                 DispatchSlots dispatchSlots,
+                                 int batchSize,
+                                 int maxFiresPerSecond,
+                                 int instance) {
+    this.vertx = vertx;
     this.timerRepository = timerRepository;
     this.timerService = timerService;
+    this.shardOwner = shardOwner;
+    this.dispatchSlots = dispatchSlots;
+    this.batchSize = batchSize;
+    this.maxFiresPerSecond = maxFiresPerSecond;
+
+    var tags = Tags.of("instance", String.valueOf(instance));
+    this.scanDuration = Timer.builder("clockworks.scan.duration").tags(tags).register(Meters.registry());
+    this.scanClaimed = DistributionSummary.builder("clockworks.scan.claimed").tags(tags).register(Meters.registry());
   }
 
   @Override
   public void handle(Long l) {
+    if (scanning) {
+      logger.debug("timing scan in progress, skipped");
+      return;
+    }
+
     logger.debug("timing scan ...");
-    timerRepository.lockOneTimer()
-      .compose(v -> {
-        if (v != null) {
-          return timerService.onTriggered(v);
-        }
-
-        return Future.succeededFuture();
-      })
-      .onFailure(event -> logger.error("triggered failed", event));
+    scanning = true;
+    var sample = Timer.start();
+    this.drain(System.nanoTime(), 0)
+      .onSuccess(scanClaimed::record)
+      .onFailure(event -> logger.error("triggered failed", event))
+      .onComplete(v -> {
+        sample.stop(scanDuration);
+        scanning = false;
+      });
+  }
+
+  private Future<Integer> drain(long startNanos, int claimed) {
+    return this.throttle(startNanos, claimed).compose(v -> {
+      var reserved = dispatchSlots.tryAcquire(this.limit());
+      if (reserved == 0) {
+        logger.debug("dispatch queue full, scan stopped");
+        return Future.succeededFuture(claimed);
+      }
+
+      return timerRepository.lockDueTimers(shardOwner.shards(), reserved)
+        .onFailure(event -> dispatchSlots.release(reserved))
+        .compose(timers -> {
+          dispatchSlots.release(reserved - timers.size());
+          if (timers.isEmpty()) {
+            return Future.succeededFuture(claimed);
+          }
+
+          timerService.onTriggered(timers)
+            .forEach(triggered -> triggered.onComplete(event -> dispatchSlots.release(1)));
+          return timers.size() < reserved
+            ? Future.succeededFuture(claimed + timers.size())
+            : this.drain(startNanos, claimed + timers.size());
+        });
+    });
+  }
+
+  public int limit() {
+    return maxFiresPerSecond > 0 ? Math.min(batchSize, maxFiresPerSecond) : batchSize;
+  }
+
+  private Future<Void> throttle(long startNanos, int claimed) {
+    if (maxFiresPerSecond <= 0 || claimed == 0) {
+      return Future.succeededFuture();
+    }
+
+    var dueNanos = startNanos + TimeUnit.SECONDS.toNanos(claimed) / maxFiresPerSecond;
+    var delayMillis = TimeUnit.NANOSECONDS.toMillis(dueNanos - System.nanoTime());
+    if (delayMillis <= 0) {
+      return Future.succeededFuture();
+    }
+
+    logger.debug("catching up, next batch in {}ms", delayMillis);
+    return vertx.timer(delayMillis).mapEmpty();
   }
 }
@@ -0,0 +1,45 @@
+package clockworks.infrastructure;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+
+/**
+ * Hands messages over between local verticles as they are, without copying.
+ */
+public class LocalCodec implements MessageCodec<Object, Object> {
+  public static final String NAME = "clockworks-local";
+
+  public static synchronized void register(Vertx vertx) {
+    try {
+      vertx.eventBus().registerCodec(new LocalCodec());
+    } catch (IllegalStateException e) {
+      // already registered
+    }
+  }
+
+  @Override
+  public void encodeToWire(Buffer buffer, Object o) {
+    throw new UnsupportedOperationException("local messages only");
+  }
+
+  @Override
+  public Object decodeFromWire(int pos, Buffer buffer) {
+    throw new UnsupportedOperationException("local messages only");
+  }
+
+  @Override
+  public Object transform(Object o) {
+    return o;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+}
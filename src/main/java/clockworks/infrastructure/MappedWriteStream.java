@@ -0,0 +1,56 @@
+package clockworks.infrastructure;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.function.Function;
+
+public class MappedWriteStream<T, R> implements WriteStream<T> {
+  private final WriteStream<R> delegate;
+  private final Function<T, R> mapper;
+
+  public MappedWriteStream(WriteStream<R> delegate, Function<T, R> mapper) {
+    this.delegate = delegate;
+    this.mapper = mapper;
+  }
+
+  @Override
+  public WriteStream<T> exceptionHandler(Handler<Throwable> handler) {
+    delegate.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Future<Void> write(T data) {
+    return delegate.write(mapper.apply(data));
+  }
+
+  @Override
+  public void write(T data, Handler<AsyncResult<Void>> handler) {
+    delegate.write(mapper.apply(data), handler);
+  }
+
+  @Override
+  public void end(Handler<AsyncResult<Void>> handler) {
+    delegate.end(handler);
+  }
+
+  @Override
+  public WriteStream<T> setWriteQueueMaxSize(int maxSize) {
+    delegate.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return delegate.writeQueueFull();
+  }
+
+  @Override
+  public WriteStream<T> drainHandler(Handler<Void> handler) {
+    delegate.drainHandler(handler);
+    return this;
+  }
+}
@@ -0,0 +1,40 @@
+package clockworks.infrastructure;
+
+import clockworks.infrastructure.repository.CachingTimerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.AsyncResult;
+import io.vertx.micrometer.backends.BackendRegistries;
+
+public class Meters {
+  public static MeterRegistry registry() {
+    var registry = BackendRegistries.getDefaultNow();
+    return registry != null ? registry : Metrics.globalRegistry;
+  }
+
+  public static void countRequest(String operation, AsyncResult<?> result) {
+    Counter.builder("clockworks.requests")
+      .tag("operation", operation)
+      .tag("outcome", result.succeeded() ? "success" : "failure")
+      .register(registry())
+      .increment();
+  }
+
+  public static void bindDefinitionCache(CachingTimerRepository cache, int instance) {
+    FunctionCounter.builder("clockworks.definition.cache", cache, CachingTimerRepository::hitCount)
+      .description("Definition lookups by whether the cache served them")
+      .tags("result", "hit", "instance", String.valueOf(instance))
+      .register(registry());
+    FunctionCounter.builder("clockworks.definition.cache", cache, CachingTimerRepository::missCount)
+      .description("Definition lookups by whether the cache served them")
+      .tags("result", "miss", "instance", String.valueOf(instance))
+      .register(registry());
+    Gauge.builder("clockworks.definition.cache.size", cache, CachingTimerRepository::size)
+      .description("Definitions held by the cache")
+      .tags("instance", String.valueOf(instance))
+      .register(registry());
+  }
+}
@@ -0,0 +1,194 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.domain.TimerRepository;
+import clockworks.infrastructure.struct.GroupDeletionDTO;
+import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerExecutionDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
+import io.vertx.core.Future;
+import io.vertx.core.streams.WriteStream;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class CachingTimerRepository implements TimerRepository {
+  private final TimerRepository delegate;
+  private final long ttlMillis;
+  private final LinkedHashMap<UUID, Entry> definitions;
+  // lookups in flight; an invalidation drops the lookup's token so its possibly stale result is not cached
+  private final Map<UUID, Object> loading = new HashMap<>();
+  private long hitCount;
+  private long missCount;
+
+  public CachingTimerRepository(TimerRepository delegate, int maxSize, long ttlMillis) {
+    this.delegate = delegate;
+    this.ttlMillis = ttlMillis;
+    this.definitions = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  public long hitCount() {
+    return hitCount;
+  }
+
+  public long missCount() {
+    return missCount;
+  }
+
+  public int size() {
+    return definitions.size();
+  }
+
+  public void invalidate(UUID definitionId) {
+    definitions.remove(definitionId);
+    loading.remove(definitionId);
+  }
+
+  public void invalidateGroup(String groupId) {
+    definitions.values().removeIf(entry -> entry.definitionDTO.groupId().equals(groupId));
+    loading.clear();
+  }
+
+  public void invalidateAll() {
+    definitions.clear();
+    loading.clear();
+  }
+
+  @Override
+  public Future<TimerDefinitionDTO> findById(UUID id) {
+    var now = System.currentTimeMillis();
+    var entry = definitions.get(id);
+    if (entry != null && entry.expiresAt > now) {
+      hitCount++;
+      return Future.succeededFuture(entry.definitionDTO);
+    }
+
+    missCount++;
+    var token = new Object();
+    loading.put(id, token);
+    return delegate.findById(id)
+      .onComplete(ar -> {
+        if (loading.remove(id, token) && ar.succeeded()) {
+          definitions.put(id, new Entry(ar.result(), now + ttlMillis));
+        }
+      });
+  }
+
+  @Override
+  public Future<Void> save(TimerDefinitionDTO definitionDTO, TimerDTO timerDTO) {
+    this.invalidate(definitionDTO.definitionId());
+    return delegate.save(definitionDTO, timerDTO)
+      .onComplete(v -> this.invalidate(definitionDTO.definitionId()));
+  }
+
+  @Override
+  public Future<Void> save(GroupTimerDefinitionDTO definitionDTO, List<TimerDTO> timers) {
+    this.invalidateGroup(definitionDTO.groupId());
+    return delegate.save(definitionDTO, timers)
+      .onComplete(v -> definitionDTO.timers().forEach(timer -> this.invalidate(timer.definitionId())));
+  }
+
+  @Override
+  public Future<Void> deleteTimerDefinition(UUID timerId) {
+    this.invalidate(timerId);
+    return delegate.deleteTimerDefinition(timerId)
+      .onComplete(v -> this.invalidate(timerId));
+  }
+
+  @Override
+  public Future<GroupDeletionDTO> startGroupDeletion(String groupId, UUID deletionId) {
+    this.invalidateGroup(groupId);
+    return delegate.startGroupDeletion(groupId, deletionId)
+      .onComplete(v -> this.invalidateGroup(groupId));
+  }
+
+  @Override
+  public Future<GroupDeletionDTO> findGroupDeletion(UUID deletionId) {
+    return delegate.findGroupDeletion(deletionId);
+  }
+
+  @Override
+  public Future<List<GroupDeletionDTO>> findRunningGroupDeletions() {
+    return delegate.findRunningGroupDeletions();
+  }
+
+  @Override
+  public Future<GroupDeletionDTO> deleteGroupChunk(UUID deletionId, int max) {
+    return delegate.deleteGroupChunk(deletionId, max);
+  }
+
+  @Override
+  public Future<Void> transition(List<TimerTransitionDTO> transitions) {
+    return delegate.transition(transitions);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findDeadTimers(int max) {
+    return delegate.findDeadTimers(max);
+  }
+
+  @Override
+  public Future<Void> pipeTimerDefinitions(String groupId,
+                                           UUID after,
+                                           int limit,
+                                           WriteStream<TimerDefinitionDTO> destination) {
+    return delegate.pipeTimerDefinitions(groupId, after, limit, destination);
+  }
+
+  @Override
+  public Future<Void> pipeTimerExecutions(UUID definitionId,
+                                          OffsetDateTime beforeExecutedAt,
+                                          UUID beforeTimerId,
+                                          int limit,
+                                          WriteStream<TimerExecutionDTO> destination) {
+    return delegate.pipeTimerExecutions(definitionId, beforeExecutedAt, beforeTimerId, limit, destination);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockDueTimers(int[] shards, int max) {
+    return delegate.lockDueTimers(shards, max);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findWaitingTimers(int[] shards, OffsetDateTime until, int max) {
+    return delegate.findWaitingTimers(shards, until, max);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockTimers(List<UUID> timerIds, OffsetDateTime until) {
+    return delegate.lockTimers(timerIds, until);
+  }
+
+  @Override
+  public Future<Integer> recoverStaleTimers(int[] shards, OffsetDateTime lockedBefore) {
+    return delegate.recoverStaleTimers(shards, lockedBefore);
+  }
+
+  @Override
+  public Future<Integer> countDueTimers(int[] shards, int max) {
+    return delegate.countDueTimers(shards, max);
+  }
+
+  @Override
+  public Future<Integer> rotatePartitions(OffsetDateTime now) {
+    return delegate.rotatePartitions(now);
+  }
+
+  @Override
+  public Future<int[]> renewShardLeases(String holder, long ttlMillis) {
+    return delegate.renewShardLeases(holder, ttlMillis);
+  }
+
+  private record Entry(TimerDefinitionDTO definitionDTO, long expiresAt) {
+  }
+}
@@ -0,0 +1,155 @@
+package clockworks.infrastructure.repository;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+public class DueIndex {
+  private long[] dues = new long[16];
+  private int[] slots = new int[16];
+  private int[] positions = new int[16];
+  private int size;
+
+  public DueIndex() {
+    Arrays.fill(positions, -1);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(int slot) {
+    return slot < positions.length && positions[slot] >= 0;
+  }
+
+  public void add(int slot, long due) {
+    if (this.contains(slot)) {
+      var position = positions[slot];
+      var previous = dues[position];
+      dues[position] = due;
+      if (due < previous) {
+        this.siftUp(position);
+      } else {
+        this.siftDown(position);
+      }
+      return;
+    }
+
+    if (size == dues.length) {
+      dues = Arrays.copyOf(dues, size * 2);
+      slots = Arrays.copyOf(slots, size * 2);
+    }
+    if (slot >= positions.length) {
+      var length = positions.length;
+      positions = Arrays.copyOf(positions, Math.max(slot + 1, length * 2));
+      Arrays.fill(positions, length, positions.length, -1);
+    }
+
+    dues[size] = due;
+    slots[size] = slot;
+    positions[slot] = size;
+    this.siftUp(size++);
+  }
+
+  public boolean remove(int slot) {
+    if (!this.contains(slot)) {
+      return false;
+    }
+
+    this.removeAt(positions[slot]);
+    return true;
+  }
+
+  public long peekDue() {
+    return size == 0 ? Long.MAX_VALUE : dues[0];
+  }
+
+  public int poll() {
+    if (size == 0) {
+      return -1;
+    }
+
+    var slot = slots[0];
+    this.removeAt(0);
+    return slot;
+  }
+
+  public void forEachDue(long until, int max, IntConsumer consumer) {
+    var frontier = new PriorityQueue<Integer>((a, b) -> Long.compare(dues[a], dues[b]));
+    if (size > 0) {
+      frontier.add(0);
+    }
+
+    var visited = 0;
+    while (!frontier.isEmpty() && visited < max) {
+      int position = frontier.poll();
+      if (dues[position] >= until) {
+        break;
+      }
+
+      consumer.accept(slots[position]);
+      visited++;
+      var left = position * 2 + 1;
+      if (left < size) {
+        frontier.add(left);
+      }
+      if (left + 1 < size) {
+        frontier.add(left + 1);
+      }
+    }
+  }
+
+  private void removeAt(int position) {
+    positions[slots[position]] = -1;
+    var last = --size;
+    if (position == last) {
+      return;
+    }
+
+    dues[position] = dues[last];
+    slots[position] = slots[last];
+    positions[slots[position]] = position;
+    this.siftDown(position);
+    this.siftUp(position);
+  }
+
+  private void siftUp(int position) {
+    while (position > 0) {
+      var parent = (position - 1) / 2;
+      if (dues[parent] <= dues[position]) {
+        return;
+      }
+      this.swap(position, parent);
+      position = parent;
+    }
+  }
+
+  private void siftDown(int position) {
+    while (true) {
+      var smallest = position;
+      var left = position * 2 + 1;
+      if (left < size && dues[left] < dues[smallest]) {
+        smallest = left;
+      }
+      if (left + 1 < size && dues[left + 1] < dues[smallest]) {
+        smallest = left + 1;
+      }
+      if (smallest == position) {
+        return;
+      }
+      this.swap(position, smallest);
+      position = smallest;
+    }
+  }
+
+  private void swap(int a, int b) {
+    var due = dues[a];
+    dues[a] = dues[b];
+    dues[b] = due;
+    var slot = slots[a];
+    slots[a] = slots[b];
+    slots[b] = slot;
+    positions[slots[a]] = a;
+    positions[slots[b]] = b;
+  }
+}
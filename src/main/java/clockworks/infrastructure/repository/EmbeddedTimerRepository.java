@@ -0,0 +1,567 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.domain.MisfirePolicy;
+import clockworks.domain.TimerRepository;
+import clockworks.infrastructure.ClientException;
+import clockworks.infrastructure.struct.GroupDeletionDTO;
+import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
+import clockworks.infrastructure.struct.RetryPolicyDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerExecutionDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Must be used from the owning event loop. Claims are not logged: a timer running when the process dies is waiting
+ * again after replay.
+ */
+public class EmbeddedTimerRepository implements TimerRepository {
+  private final Logger logger = LoggerFactory.getLogger(EmbeddedTimerRepository.class);
+
+  private static final byte DEFINITION_PUT = 1;
+  private static final byte DEFINITION_DELETE = 2;
+  private static final byte TIMER_PUT = 3;
+  private static final byte TIMER_DELETE = 4;
+  private static final byte TIMER_DEAD = 5;
+  private static final byte WAITING = 1;
+  private static final byte RUNNING = 2;
+  /**
+   * Compares ids as unsigned bytes, as Postgres does, so a cursor means the same on either storage.
+   */
+  private static final Comparator<UUID> ID_ORDER = Comparator
+    .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+    .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+  public static EmbeddedTimerRepository create(Vertx vertx, JsonObject config, int notifyWithinSeconds) {
+    var repository = new EmbeddedTimerRepository(
+      Path.of(config.getString("directory", "data")),
+      config.getInteger("segmentSize", 64 << 20),
+      config.getInteger("deadTimerCapacity", 10000),
+      notifyWithinSeconds
+    );
+
+    // ordered, so flushes and snapshot writes never overlap
+    repository.blockingExecutor = callable -> vertx.executeBlocking(callable, true);
+    vertx.setPeriodic(config.getLong("syncIntervalMillis", 100L), l -> repository.sync());
+    int compactionSegments = config.getInteger("compactionSegments", 4);
+    vertx.setPeriodic(config.getLong("compactionIntervalSeconds", 60L) * 1000, l -> repository.compact(compactionSegments));
+    return repository;
+  }
+
+  private final SegmentLog log;
+  private final int deadTimerCapacity;
+  private final int notifyWithinSeconds;
+  private final Map<UUID, TimerDefinitionDTO> definitions = new HashMap<>();
+  private final Map<UUID, Integer> slots = new HashMap<>();
+  private final DueIndex dueIndex = new DueIndex();
+  private final ArrayDeque<TimerDTO> deadTimers = new ArrayDeque<>();
+  private final Map<UUID, GroupDeletionDTO> groupDeletions = new HashMap<>();
+  private UUID[] timerIds = new UUID[1024];
+  private UUID[] definitionIds = new UUID[1024];
+  private long[] triggerTimes = new long[1024];
+  private int[] attempts = new int[1024];
+  private byte[] states = new byte[1024];
+  private long[] lockedAt = new long[1024];
+  private int[] freeSlots = new int[64];
+  private int freeCount;
+  private int slotCount;
+  private ByteBuffer buffer = ByteBuffer.allocate(4096);
+  private Handler<TimerDTO> timerHandler = timerDTO -> {
+  };
+  private Function<Callable<Void>, Future<Void>> blockingExecutor = EmbeddedTimerRepository::callInline;
+  private boolean syncing;
+  private boolean compacting;
+
+  public EmbeddedTimerRepository(Path directory, int segmentSize, int deadTimerCapacity, int notifyWithinSeconds) {
+    this.log = new SegmentLog(directory, segmentSize);
+    this.deadTimerCapacity = deadTimerCapacity;
+    this.notifyWithinSeconds = notifyWithinSeconds;
+
+    var started = System.currentTimeMillis();
+    log.replay(this::apply);
+    logger.info("replayed {} definitions and {} timers in {}ms",
+      definitions.size(), slots.size(), System.currentTimeMillis() - started);
+  }
+
+  public EmbeddedTimerRepository timerHandler(Handler<TimerDTO> timerHandler) {
+    this.timerHandler = timerHandler;
+    return this;
+  }
+
+  public int size() {
+    return slots.size();
+  }
+
+  /**
+   * Flushes the log off the event loop; appends go on into the mapped segments meanwhile.
+   */
+  public Future<Void> sync() {
+    if (syncing) {
+      return Future.succeededFuture();
+    }
+
+    syncing = true;
+    var force = log.pendingForce();
+    return blockingExecutor.apply(() -> {
+        force.run();
+        return null;
+      })
+      .onFailure(event -> logger.error("sync failed", event))
+      .onComplete(v -> syncing = false);
+  }
+
+  public Future<Void> compact(int minSegments) {
+    if (compacting || log.segmentsSinceSnapshot() < minSegments) {
+      return Future.succeededFuture();
+    }
+
+    compacting = true;
+    // the state is encoded on the event loop, the file is written off it
+    var write = log.snapshot(writer -> {
+      definitions.values().forEach(definitionDTO -> writer.accept(DEFINITION_PUT, this.encode(b -> putDefinition(b, definitionDTO))));
+      for (int slot : slots.values()) {
+        writer.accept(TIMER_PUT, this.encode(b -> putTimer(b, this.timerDTO(slot))));
+      }
+      var iterator = deadTimers.descendingIterator();
+      while (iterator.hasNext()) {
+        var timerDTO = iterator.next();
+        writer.accept(TIMER_DEAD, this.encode(b -> putTimer(b, timerDTO)));
+      }
+    });
+    return blockingExecutor.apply(() -> {
+        write.run();
+        return null;
+      })
+      .onFailure(event -> logger.error("compaction failed", event))
+      .onComplete(v -> compacting = false);
+  }
+
+  private static Future<Void> callInline(Callable<Void> callable) {
+    try {
+      return Future.succeededFuture(callable.call());
+    } catch (Exception e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  public void close() {
+    log.close();
+  }
+
+  @Override
+  public Future<TimerDefinitionDTO> findById(UUID id) {
+    var definitionDTO = definitions.get(id);
+    if (definitionDTO == null) {
+      return Future.failedFuture(ClientException.illegalRequest("illegal timer id %s", id));
+    }
+    return Future.succeededFuture(definitionDTO);
+  }
+
+  @Override
+  public Future<Void> save(TimerDefinitionDTO definitionDTO, TimerDTO timerDTO) {
+    if (definitions.containsKey(definitionDTO.definitionId())) {
+      this.deleteTimers(definitionId -> definitionId.equals(definitionDTO.definitionId()), true);
+    }
+
+    this.append(DEFINITION_PUT, b -> putDefinition(b, definitionDTO));
+    this.putWaiting(timerDTO);
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> save(GroupTimerDefinitionDTO definitionDTO, List<TimerDTO> timers) {
+    definitionDTO.timers().forEach(timerDefinitionDTO -> this.append(DEFINITION_PUT, b -> putDefinition(b, timerDefinitionDTO)));
+    timers.forEach(this::putWaiting);
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> deleteTimerDefinition(UUID timerId) {
+    this.deleteTimers(timerId::equals, false);
+    this.append(DEFINITION_DELETE, b -> putUuid(b, timerId));
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<GroupDeletionDTO> startGroupDeletion(String groupId, UUID deletionId) {
+    var startedAt = OffsetDateTime.now();
+    var definitionIds = definitions.values().stream()
+      .filter(definitionDTO -> groupId.equals(definitionDTO.groupId()))
+      .map(TimerDefinitionDTO::definitionId)
+      .collect(Collectors.toSet());
+
+    this.deleteTimers(definitionIds::contains, false);
+    definitionIds.forEach(definitionId -> this.append(DEFINITION_DELETE, b -> putUuid(b, definitionId)));
+    var deletionDTO = new GroupDeletionDTO(deletionId, groupId, definitionIds.size(), startedAt, OffsetDateTime.now());
+    groupDeletions.put(deletionId, deletionDTO);
+    return Future.succeededFuture(deletionDTO);
+  }
+
+  @Override
+  public Future<GroupDeletionDTO> findGroupDeletion(UUID deletionId) {
+    var deletionDTO = groupDeletions.get(deletionId);
+    if (deletionDTO == null) {
+      return Future.failedFuture(ClientException.illegalRequest("illegal deletion id %s", deletionId));
+    }
+    return Future.succeededFuture(deletionDTO);
+  }
+
+  @Override
+  public Future<Void> transition(List<TimerTransitionDTO> transitions) {
+    for (var transition : transitions) {
+      var slot = slots.get(transition.timerId());
+      if (slot == null || states[slot] != RUNNING) {
+        continue;
+      }
+
+      var timerDTO = this.timerDTO(slot);
+      switch (transition.state()) {
+        case WAITING -> this.putWaiting(new TimerDTO(
+          timerDTO.timerId(),
+          timerDTO.definitionId(),
+          transition.triggerTime(),
+          transition.attempt()
+        ));
+        case DEAD -> this.append(TIMER_DEAD, b -> putTimer(b, new TimerDTO(
+          timerDTO.timerId(),
+          timerDTO.definitionId(),
+          timerDTO.triggerTime(),
+          transition.attempt()
+        )));
+        default -> this.append(TIMER_DELETE, b -> putUuid(b, timerDTO.timerId()));
+      }
+
+      if (transition.nextTimer() != null) {
+        this.putWaiting(transition.nextTimer());
+      }
+    }
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findDeadTimers(int max) {
+    return Future.succeededFuture(deadTimers.stream().limit(max).toList());
+  }
+
+  @Override
+  public Future<Void> pipeTimerDefinitions(String groupId,
+                                           UUID after,
+                                           int limit,
+                                           WriteStream<TimerDefinitionDTO> destination) {
+    var page = definitions.values().stream()
+      .filter(definitionDTO -> groupId == null || groupId.equals(definitionDTO.groupId()))
+      .filter(definitionDTO -> after == null || ID_ORDER.compare(definitionDTO.definitionId(), after) > 0)
+      .sorted(Comparator.comparing(TimerDefinitionDTO::definitionId, ID_ORDER))
+      .limit(limit)
+      .toList();
+    page.forEach(destination::write);
+    return destination.end();
+  }
+
+  @Override
+  public Future<Void> pipeTimerExecutions(UUID definitionId,
+                                          OffsetDateTime beforeExecutedAt,
+                                          UUID beforeTimerId,
+                                          int limit,
+                                          WriteStream<TimerExecutionDTO> destination) {
+    return destination.end();
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockDueTimers(int[] shards, int max) {
+    var now = System.currentTimeMillis();
+    var timers = new ArrayList<TimerDTO>();
+    while (timers.size() < max && dueIndex.peekDue() < now) {
+      var slot = dueIndex.poll();
+      this.lock(slot, now);
+      timers.add(this.timerDTO(slot));
+    }
+    return Future.succeededFuture(timers);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findWaitingTimers(int[] shards, OffsetDateTime until, int max) {
+    var timers = new ArrayList<TimerDTO>();
+    dueIndex.forEachDue(until.toInstant().toEpochMilli(), max, slot -> timers.add(this.timerDTO(slot)));
+    return Future.succeededFuture(timers);
+  }
+
+  @Override
+  public Future<Integer> countDueTimers(int[] shards, int max) {
+    var count = new int[1];
+    dueIndex.forEachDue(System.currentTimeMillis(), max, slot -> count[0]++);
+    return Future.succeededFuture(count[0]);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockTimers(List<UUID> timerIds, OffsetDateTime until) {
+    var now = System.currentTimeMillis();
+    var untilMillis = until.toInstant().toEpochMilli();
+    var timers = new ArrayList<TimerDTO>(timerIds.size());
+    for (var timerId : timerIds) {
+      var slot = slots.get(timerId);
+      if (slot != null && triggerTimes[slot] <= untilMillis && dueIndex.remove(slot)) {
+        this.lock(slot, now);
+        timers.add(this.timerDTO(slot));
+      }
+    }
+    return Future.succeededFuture(timers);
+  }
+
+  @Override
+  public Future<Integer> recoverStaleTimers(int[] shards, OffsetDateTime lockedBefore) {
+    var before = lockedBefore.toInstant().toEpochMilli();
+    var count = 0;
+    for (int slot : slots.values()) {
+      if (states[slot] == RUNNING && lockedAt[slot] < before) {
+        states[slot] = WAITING;
+        dueIndex.add(slot, triggerTimes[slot]);
+        count++;
+      }
+    }
+    return Future.succeededFuture(count);
+  }
+
+  private void lock(int slot, long now) {
+    states[slot] = RUNNING;
+    lockedAt[slot] = now;
+  }
+
+  private void putWaiting(TimerDTO timerDTO) {
+    this.append(TIMER_PUT, b -> putTimer(b, timerDTO));
+    if (timerDTO.triggerTime().isBefore(OffsetDateTime.now().plusSeconds(notifyWithinSeconds))) {
+      timerHandler.handle(timerDTO);
+    }
+  }
+
+  private void deleteTimers(Predicate<UUID> definitionFilter, boolean waitingOnly) {
+    var deleted = new ArrayList<UUID>();
+    for (var entry : slots.entrySet()) {
+      int slot = entry.getValue();
+      if (definitionFilter.test(definitionIds[slot]) && (!waitingOnly || states[slot] == WAITING)) {
+        deleted.add(entry.getKey());
+      }
+    }
+    deleted.forEach(timerId -> this.append(TIMER_DELETE, b -> putUuid(b, timerId)));
+  }
+
+  private void append(byte type, Consumer<ByteBuffer> encoder) {
+    var record = this.encode(encoder);
+    log.append(type, record.duplicate());
+    this.apply(type, record);
+  }
+
+  private ByteBuffer encode(Consumer<ByteBuffer> encoder) {
+    while (true) {
+      try {
+        buffer.clear();
+        encoder.accept(buffer);
+        return buffer.flip();
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+      }
+    }
+  }
+
+  private void apply(byte type, ByteBuffer payload) {
+    switch (type) {
+      case DEFINITION_PUT -> {
+        var definitionDTO = getDefinition(payload);
+        definitions.put(definitionDTO.definitionId(), definitionDTO);
+      }
+      case DEFINITION_DELETE -> definitions.remove(getUuid(payload));
+      case TIMER_PUT -> this.applyTimerPut(getTimer(payload));
+      case TIMER_DELETE -> this.removeSlot(getUuid(payload));
+      case TIMER_DEAD -> {
+        var timerDTO = getTimer(payload);
+        this.removeSlot(timerDTO.timerId());
+        deadTimers.addFirst(timerDTO);
+        if (deadTimers.size() > deadTimerCapacity) {
+          deadTimers.removeLast();
+        }
+      }
+      default -> throw new IllegalStateException("unknown record type " + type);
+    }
+  }
+
+  private void applyTimerPut(TimerDTO timerDTO) {
+    var slot = slots.get(timerDTO.timerId());
+    if (slot == null) {
+      slot = this.allocateSlot();
+      slots.put(timerDTO.timerId(), slot);
+    }
+
+    timerIds[slot] = timerDTO.timerId();
+    definitionIds[slot] = timerDTO.definitionId();
+    triggerTimes[slot] = timerDTO.triggerTime().toInstant().toEpochMilli();
+    attempts[slot] = timerDTO.attempt();
+    states[slot] = WAITING;
+    dueIndex.add(slot, triggerTimes[slot]);
+  }
+
+  private void removeSlot(UUID timerId) {
+    var slot = slots.remove(timerId);
+    if (slot == null) {
+      return;
+    }
+
+    dueIndex.remove(slot);
+    timerIds[slot] = null;
+    definitionIds[slot] = null;
+    states[slot] = 0;
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  private int allocateSlot() {
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+
+    if (slotCount == timerIds.length) {
+      var capacity = slotCount * 2;
+      timerIds = Arrays.copyOf(timerIds, capacity);
+      definitionIds = Arrays.copyOf(definitionIds, capacity);
+      triggerTimes = Arrays.copyOf(triggerTimes, capacity);
+      attempts = Arrays.copyOf(attempts, capacity);
+      states = Arrays.copyOf(states, capacity);
+      lockedAt = Arrays.copyOf(lockedAt, capacity);
+    }
+    return slotCount++;
+  }
+
+  private TimerDTO timerDTO(int slot) {
+    return new TimerDTO(timerIds[slot], definitionIds[slot], toOffsetDateTime(triggerTimes[slot]), attempts[slot]);
+  }
+
+  private static void putTimer(ByteBuffer buffer, TimerDTO timerDTO) {
+    putUuid(buffer, timerDTO.timerId());
+    putUuid(buffer, timerDTO.definitionId());
+    buffer.putLong(timerDTO.triggerTime().toInstant().toEpochMilli());
+    buffer.putInt(timerDTO.attempt());
+  }
+
+  private static TimerDTO getTimer(ByteBuffer buffer) {
+    return new TimerDTO(getUuid(buffer), getUuid(buffer), toOffsetDateTime(buffer.getLong()), buffer.getInt());
+  }
+
+  private static void putDefinition(ByteBuffer buffer, TimerDefinitionDTO definitionDTO) {
+    putUuid(buffer, definitionDTO.definitionId());
+    putString(buffer, definitionDTO.groupId());
+    putString(buffer, definitionDTO.timerName());
+    putString(buffer, definitionDTO.timerDescription());
+    buffer.putInt(definitionDTO.initialDelaySeconds());
+    buffer.putInt(definitionDTO.intervalSeconds());
+    buffer.put((byte) (definitionDTO.fixedRate() ? 1 : 0));
+    putString(buffer, definitionDTO.callbackUrl());
+    buffer.put((byte) (definitionDTO.batchCallback() ? 1 : 0));
+    buffer.putInt(definitionDTO.retryPolicy().maxAttempts());
+    buffer.putLong(definitionDTO.retryPolicy().baseDelayMillis());
+    buffer.putLong(definitionDTO.retryPolicy().maxDelayMillis());
+    buffer.putDouble(definitionDTO.retryPolicy().jitter());
+    buffer.putLong(definitionDTO.updatedAt().toInstant().toEpochMilli());
+    buffer.put((byte) definitionDTO.misfirePolicy().ordinal());
+    putString(buffer, definitionDTO.cronExpression());
+    putString(buffer, definitionDTO.timeZone());
+  }
+
+  private static TimerDefinitionDTO getDefinition(ByteBuffer buffer) {
+    var definitionId = getUuid(buffer);
+    var groupId = getString(buffer);
+    var timerName = getString(buffer);
+    var timerDescription = getString(buffer);
+    var initialDelaySeconds = buffer.getInt();
+    var intervalSeconds = buffer.getInt();
+    var fixedRate = buffer.get() != 0;
+    var callbackUrl = getString(buffer);
+    var batchCallback = buffer.get() != 0;
+    var retryPolicy = new RetryPolicyDTO(buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getDouble());
+    var updatedAt = toOffsetDateTime(buffer.getLong());
+    // records written before misfire policies end here
+    var misfirePolicy = buffer.hasRemaining() ? MisfirePolicy.values()[buffer.get()] : MisfirePolicy.FIRE_ONCE_NOW;
+    // and those written before cron schedules here
+    var cronExpression = buffer.hasRemaining() ? getString(buffer) : null;
+    var timeZone = buffer.hasRemaining() ? getString(buffer) : null;
+    return new TimerDefinitionDTO(
+      definitionId,
+      groupId,
+      timerName,
+      timerDescription,
+      initialDelaySeconds,
+      intervalSeconds,
+      fixedRate,
+      callbackUrl,
+      batchCallback,
+      retryPolicy,
+      misfirePolicy,
+      cronExpression,
+      timeZone,
+      updatedAt
+    );
+  }
+
+  private static void putUuid(ByteBuffer buffer, UUID uuid) {
+    buffer.putLong(uuid.getMostSignificantBits());
+    buffer.putLong(uuid.getLeastSignificantBits());
+  }
+
+  private static UUID getUuid(ByteBuffer buffer) {
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    if (value == null) {
+      buffer.putInt(-1);
+      return;
+    }
+
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    var length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+
+    var bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static OffsetDateTime toOffsetDateTime(long epochMillis) {
+    return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+  }
+}
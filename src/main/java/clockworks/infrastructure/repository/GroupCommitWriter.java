@@ -0,0 +1,80 @@
+package clockworks.infrastructure.repository;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class GroupCommitWriter<T> {
+  private final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+  private final Vertx vertx;
+  private final long windowMillis;
+  private final int maxBatchSize;
+  private final Function<List<T>, Future<Void>> flusher;
+  private List<T> items = new ArrayList<>();
+  private List<Promise<Void>> promises = new ArrayList<>();
+  private long flushTimerId = -1;
+
+  public GroupCommitWriter(Vertx vertx,
+                           long windowMillis,
+                           int maxBatchSize,
+                           Function<List<T>, Future<Void>> flusher) {
+    this.vertx = vertx;
+    this.windowMillis = windowMillis;
+    this.maxBatchSize = maxBatchSize;
+    this.flusher = flusher;
+  }
+
+  public Future<Void> submit(T item) {
+    var promise = Promise.<Void>promise();
+    items.add(item);
+    promises.add(promise);
+
+    if (items.size() >= maxBatchSize) {
+      this.flush();
+    } else if (flushTimerId == -1) {
+      flushTimerId = vertx.setTimer(windowMillis, l -> {
+        flushTimerId = -1;
+        this.flush();
+      });
+    }
+
+    return promise.future();
+  }
+
+  private void flush() {
+    if (flushTimerId != -1) {
+      vertx.cancelTimer(flushTimerId);
+      flushTimerId = -1;
+    }
+
+    if (items.isEmpty()) {
+      return;
+    }
+
+    var batch = items;
+    var batchPromises = promises;
+    items = new ArrayList<>();
+    promises = new ArrayList<>();
+
+    logger.debug("group commit {} writes", batch.size());
+    flusher.apply(batch)
+      .onSuccess(v -> batchPromises.forEach(Promise::complete))
+      .onFailure(event -> {
+        if (batch.size() == 1) {
+          batchPromises.get(0).fail(event);
+          return;
+        }
+
+        logger.warn("group commit of {} writes failed, retry one by one: {}", batch.size(), event.getMessage());
+        for (int i = 0; i < batch.size(); i++) {
+          flusher.apply(List.of(batch.get(i))).onComplete(batchPromises.get(i));
+        }
+      });
+  }
+}
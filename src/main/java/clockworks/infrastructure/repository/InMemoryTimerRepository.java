@@ -0,0 +1,290 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.domain.TimerRepository;
+import clockworks.infrastructure.ClientException;
+import clockworks.infrastructure.struct.GroupDeletionDTO;
+import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
+import io.vertx.core.Future;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shared between threads without locks: a claim is a compare-and-set from waiting to running, so a timer is handed
+ * out once however many threads claim it.
+ */
+public class InMemoryTimerRepository implements TimerRepository {
+  private static final Comparator<Due> DUE_ORDER = Comparator.comparingLong(Due::triggerMillis).thenComparing(Due::timerId);
+  private static final int DEAD_TIMER_CAPACITY = 10000;
+
+  private final ConcurrentHashMap<UUID, TimerDefinitionDTO> definitions = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<UUID, AtomicReference<Entry>> timers = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListSet<Due> dueIndex = new ConcurrentSkipListSet<>(DUE_ORDER);
+  private final ConcurrentLinkedDeque<TimerDTO> deadTimers = new ConcurrentLinkedDeque<>();
+  private final ConcurrentHashMap<UUID, GroupDeletionDTO> groupDeletions = new ConcurrentHashMap<>();
+
+  public int size() {
+    return timers.size();
+  }
+
+  @Override
+  public Future<TimerDefinitionDTO> findById(UUID id) {
+    var definitionDTO = definitions.get(id);
+    if (definitionDTO == null) {
+      return Future.failedFuture(ClientException.illegalRequest("illegal timer id %s", id));
+    }
+    return Future.succeededFuture(definitionDTO);
+  }
+
+  @Override
+  public Future<Void> save(TimerDefinitionDTO definitionDTO, TimerDTO timerDTO) {
+    if (definitions.put(definitionDTO.definitionId(), definitionDTO) != null) {
+      timers.values().forEach(reference -> {
+        var entry = reference.get();
+        if (entry.timerDTO().definitionId().equals(definitionDTO.definitionId()) && entry.state() == State.WAITING) {
+          this.remove(entry.timerDTO().timerId());
+        }
+      });
+    }
+    this.putWaiting(timerDTO);
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> save(GroupTimerDefinitionDTO definitionDTO, List<TimerDTO> timers) {
+    definitionDTO.timers().forEach(timerDefinitionDTO -> definitions.put(timerDefinitionDTO.definitionId(), timerDefinitionDTO));
+    timers.forEach(this::putWaiting);
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> deleteTimerDefinition(UUID timerId) {
+    definitions.remove(timerId);
+    timers.values().forEach(reference -> {
+      var entry = reference.get();
+      if (entry.timerDTO().definitionId().equals(timerId)) {
+        this.remove(entry.timerDTO().timerId());
+      }
+    });
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<GroupDeletionDTO> startGroupDeletion(String groupId, UUID deletionId) {
+    var startedAt = OffsetDateTime.now();
+    var definitionIds = definitions.values().stream()
+      .filter(definitionDTO -> groupId.equals(definitionDTO.groupId()))
+      .map(TimerDefinitionDTO::definitionId)
+      .toList();
+    definitionIds.forEach(this::deleteTimerDefinition);
+
+    var deletionDTO = new GroupDeletionDTO(deletionId, groupId, definitionIds.size(), startedAt, OffsetDateTime.now());
+    groupDeletions.put(deletionId, deletionDTO);
+    return Future.succeededFuture(deletionDTO);
+  }
+
+  @Override
+  public Future<GroupDeletionDTO> findGroupDeletion(UUID deletionId) {
+    var deletionDTO = groupDeletions.get(deletionId);
+    if (deletionDTO == null) {
+      return Future.failedFuture(ClientException.illegalRequest("illegal deletion id %s", deletionId));
+    }
+    return Future.succeededFuture(deletionDTO);
+  }
+
+  @Override
+  public Future<Void> transition(List<TimerTransitionDTO> transitions) {
+    for (var transition : transitions) {
+      var reference = timers.get(transition.timerId());
+      var entry = reference == null ? null : reference.get();
+      if (entry == null || entry.state() != State.RUNNING) {
+        continue;
+      }
+
+      switch (transition.state()) {
+        case WAITING -> {
+          var timerDTO = new TimerDTO(
+            entry.timerDTO().timerId(),
+            entry.timerDTO().definitionId(),
+            transition.triggerTime(),
+            transition.attempt()
+          );
+          if (reference.compareAndSet(entry, new Entry(timerDTO, State.WAITING, 0))) {
+            dueIndex.add(Due.of(timerDTO));
+          }
+        }
+        case DEAD -> {
+          if (timers.remove(transition.timerId(), reference)) {
+            deadTimers.addFirst(new TimerDTO(
+              entry.timerDTO().timerId(),
+              entry.timerDTO().definitionId(),
+              entry.timerDTO().triggerTime(),
+              transition.attempt()
+            ));
+            if (deadTimers.size() > DEAD_TIMER_CAPACITY) {
+              deadTimers.pollLast();
+            }
+          }
+        }
+        default -> timers.remove(transition.timerId(), reference);
+      }
+
+      if (transition.nextTimer() != null) {
+        this.putWaiting(transition.nextTimer());
+      }
+    }
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findDeadTimers(int max) {
+    return Future.succeededFuture(deadTimers.stream().limit(max).toList());
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockDueTimers(int[] shards, int max) {
+    var now = System.currentTimeMillis();
+    var claimed = new ArrayList<TimerDTO>();
+    while (claimed.size() < max) {
+      var due = dueIndex.pollFirst();
+      if (due == null) {
+        break;
+      }
+      if (due.triggerMillis() >= now) {
+        dueIndex.add(due);
+        break;
+      }
+
+      var timerDTO = this.claim(due.timerId(), due.triggerMillis(), now);
+      if (timerDTO != null) {
+        claimed.add(timerDTO);
+      }
+    }
+    return Future.succeededFuture(claimed);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findWaitingTimers(int[] shards, OffsetDateTime until, int max) {
+    var untilMillis = until.toInstant().toEpochMilli();
+    var waiting = new ArrayList<TimerDTO>();
+    for (var due : dueIndex) {
+      if (due.triggerMillis() >= untilMillis || waiting.size() >= max) {
+        break;
+      }
+
+      var reference = timers.get(due.timerId());
+      var entry = reference == null ? null : reference.get();
+      if (entry != null && entry.state() == State.WAITING) {
+        waiting.add(entry.timerDTO());
+      }
+    }
+    return Future.succeededFuture(waiting);
+  }
+
+  @Override
+  public Future<Integer> countDueTimers(int[] shards, int max) {
+    var now = System.currentTimeMillis();
+    var count = 0;
+    for (var due : dueIndex) {
+      if (due.triggerMillis() >= now || count >= max) {
+        break;
+      }
+      count++;
+    }
+    return Future.succeededFuture(count);
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockTimers(List<UUID> timerIds, OffsetDateTime until) {
+    var now = System.currentTimeMillis();
+    var untilMillis = until.toInstant().toEpochMilli();
+    var claimed = new ArrayList<TimerDTO>(timerIds.size());
+    for (var timerId : timerIds) {
+      var reference = timers.get(timerId);
+      if (reference == null) {
+        continue;
+      }
+      var triggerMillis = reference.get().timerDTO().triggerTime().toInstant().toEpochMilli();
+      if (triggerMillis > untilMillis) {
+        continue;
+      }
+      var timerDTO = this.claim(timerId, triggerMillis, now);
+      if (timerDTO != null) {
+        dueIndex.remove(Due.of(timerDTO));
+        claimed.add(timerDTO);
+      }
+    }
+    return Future.succeededFuture(claimed);
+  }
+
+  @Override
+  public Future<Integer> recoverStaleTimers(int[] shards, OffsetDateTime lockedBefore) {
+    var before = lockedBefore.toInstant().toEpochMilli();
+    var count = 0;
+    for (var reference : timers.values()) {
+      var entry = reference.get();
+      if (entry.state() == State.RUNNING && entry.lockedAt() < before
+        && reference.compareAndSet(entry, new Entry(entry.timerDTO(), State.WAITING, 0))) {
+        dueIndex.add(Due.of(entry.timerDTO()));
+        count++;
+      }
+    }
+    return Future.succeededFuture(count);
+  }
+
+  private TimerDTO claim(UUID timerId, long triggerMillis, long now) {
+    var reference = timers.get(timerId);
+    if (reference == null) {
+      return null;
+    }
+
+    while (true) {
+      var entry = reference.get();
+      if (entry.state() != State.WAITING) {
+        return null;
+      }
+      if (triggerMillis != -1 && entry.timerDTO().triggerTime().toInstant().toEpochMilli() != triggerMillis) {
+        return null;
+      }
+      if (reference.compareAndSet(entry, new Entry(entry.timerDTO(), State.RUNNING, now))) {
+        return entry.timerDTO();
+      }
+    }
+  }
+
+  private void putWaiting(TimerDTO timerDTO) {
+    timers.put(timerDTO.timerId(), new AtomicReference<>(new Entry(timerDTO, State.WAITING, 0)));
+    dueIndex.add(Due.of(timerDTO));
+  }
+
+  private void remove(UUID timerId) {
+    var reference = timers.remove(timerId);
+    if (reference != null) {
+      dueIndex.remove(Due.of(reference.get().timerDTO()));
+    }
+  }
+
+  private enum State {
+    WAITING,
+    RUNNING
+  }
+
+  private record Entry(TimerDTO timerDTO, State state, long lockedAt) {
+  }
+
+  private record Due(long triggerMillis, UUID timerId) {
+    static Due of(TimerDTO timerDTO) {
+      return new Due(timerDTO.triggerTime().toInstant().toEpochMilli(), timerDTO.timerId());
+    }
+  }
+}
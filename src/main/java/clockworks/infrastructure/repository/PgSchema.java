@@ -0,0 +1,203 @@
+package clockworks.infrastructure.repository;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class PgSchema {
+  private final Logger logger = LoggerFactory.getLogger(PgSchema.class);
+
+  private static final long MIGRATION_LOCK = 0x636c6f636bL;
+  private static final List<String> MIGRATIONS = List.of(
+    "V1__create_schema.sql",
+    "V2__shard_timers.sql",
+    "V3__shard_leases.sql",
+    "V4__misfire_policy.sql",
+    "V5__cron_schedule.sql",
+    "V6__group_deletion.sql",
+    "V7__keyset_indexes.sql"
+  );
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+  private static final List<PartitionedTable> PARTITIONED_TABLES = List.of(
+    new PartitionedTable("timer", "trigger_time", "state IN ('WAITING', 'RUNNING')"),
+    new PartitionedTable("timer_execution", "executed_at", null)
+  );
+
+  private final Vertx vertx;
+  private final Pool pool;
+  private final int aheadDays;
+  private final int retentionDays;
+  private final boolean archive;
+
+  public PgSchema(Vertx vertx, Pool pool, int aheadDays, int retentionDays, boolean archive) {
+    this.vertx = vertx;
+    this.pool = pool;
+    this.aheadDays = aheadDays;
+    this.retentionDays = retentionDays;
+    this.archive = archive;
+  }
+
+  /**
+   * Serialized across instances by an advisory lock.
+   */
+  public Future<Void> migrate() {
+    return pool.withConnection(connection -> connection
+      .preparedQuery("SELECT pg_advisory_lock($1)")
+      .execute(Tuple.of(MIGRATION_LOCK))
+      .compose(_v -> connection
+        .query("""
+          CREATE TABLE IF NOT EXISTS schema_version (
+              version int PRIMARY KEY,
+              script text NOT NULL,
+              applied_at timestamptz NOT NULL DEFAULT now()
+          )
+          """)
+        .execute())
+      .compose(_v -> this.migrate(connection, 0))
+      .eventually(() -> connection.preparedQuery("SELECT pg_advisory_unlock($1)").execute(Tuple.of(MIGRATION_LOCK))));
+  }
+
+  private Future<Void> migrate(SqlConnection connection, int index) {
+    if (index >= MIGRATIONS.size()) {
+      return Future.succeededFuture();
+    }
+
+    var script = MIGRATIONS.get(index);
+    var version = index + 1;
+    return connection.preparedQuery("SELECT 1 FROM schema_version WHERE version = $1")
+      .execute(Tuple.of(version))
+      .compose(rows -> {
+        if (rows.size() > 0) {
+          return Future.succeededFuture();
+        }
+
+        logger.info("applying schema migration {}", script);
+        return vertx.fileSystem().readFile("db/migration/" + script)
+          .compose(sql -> connection.begin()
+            .compose(tx -> connection.query(sql.toString()).execute()
+              .compose(_v -> connection.preparedQuery("INSERT INTO schema_version (version, script) VALUES ($1, $2)")
+                .execute(Tuple.of(version, script)))
+              .compose(_v -> tx.commit())
+              .onFailure(event -> tx.rollback())));
+      })
+      .compose(_v -> this.migrate(connection, index + 1));
+  }
+
+  /**
+   * A {@code timer} partition still holding waiting or running timers is kept.
+   */
+  public Future<Integer> rotatePartitions(LocalDate today) {
+    var future = Future.succeededFuture(0);
+    for (var table : PARTITIONED_TABLES) {
+      for (int i = 0; i <= aheadDays; i++) {
+        var day = today.plusDays(i);
+        future = future.compose(count -> this.createPartition(table, day).map(count));
+      }
+      future = future.compose(count -> this.retirePartitions(table, today.minusDays(retentionDays))
+        .map(retired -> count + retired));
+    }
+    return future;
+  }
+
+  private Future<Void> createPartition(PartitionedTable table, LocalDate day) {
+    var partition = table.partition(day);
+    return pool.withTransaction(tx -> tx.preparedQuery("SELECT pg_advisory_xact_lock($1)")
+      .execute(Tuple.of(MIGRATION_LOCK))
+      .compose(_v -> tx.preparedQuery("SELECT to_regclass($1) IS NOT NULL AS present").execute(Tuple.of(partition)))
+      .compose(rows -> {
+        if (rows.iterator().next().getBoolean("present")) {
+          return Future.succeededFuture();
+        }
+
+        logger.info("creating partition {}", partition);
+        return tx.query("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)".formatted(partition, table.name()))
+          .execute()
+          .compose(_v -> tx.query("""
+              WITH moved AS (
+                DELETE FROM %1$s_default
+                WHERE %2$s >= '%3$s' AND %2$s < '%4$s'
+                RETURNING *
+              )
+              INSERT INTO %5$s SELECT * FROM moved
+              """.formatted(table.name(), table.column(), lowerBound(day), lowerBound(day.plusDays(1)), partition))
+            .execute())
+          .compose(_v -> tx.query("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+              .formatted(table.name(), partition, lowerBound(day), lowerBound(day.plusDays(1))))
+            .execute())
+          .mapEmpty();
+      }));
+  }
+
+  private Future<Integer> retirePartitions(PartitionedTable table, LocalDate before) {
+    return pool.withConnection(connection -> connection.preparedQuery("""
+        SELECT child.relname
+        FROM pg_inherits
+        JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE pg_inherits.inhparent = $1::regclass
+        """)
+      .execute(Tuple.of(table.name()))
+      .compose(rows -> {
+        var expired = new ArrayList<String>();
+        for (Row row : rows) {
+          var matcher = table.pattern().matcher(row.getString("relname"));
+          if (matcher.matches() && LocalDate.parse(matcher.group(1), PARTITION_SUFFIX).plusDays(1).isBefore(before)) {
+            expired.add(row.getString("relname"));
+          }
+        }
+
+        var future = Future.succeededFuture(0);
+        for (var partition : expired) {
+          future = future.compose(count -> this.retirePartition(connection, table, partition)
+            .map(retired -> retired ? count + 1 : count));
+        }
+        return future;
+      }));
+  }
+
+  private Future<Boolean> retirePartition(SqlConnection connection, PartitionedTable table, String partition) {
+    var live = table.liveCondition() == null
+      ? Future.succeededFuture(false)
+      : connection.query("SELECT EXISTS (SELECT 1 FROM %s WHERE %s) AS live".formatted(partition, table.liveCondition()))
+        .execute()
+        .map(rows -> rows.iterator().next().getBoolean("live"));
+
+    return live.compose(present -> {
+      if (present) {
+        logger.warn("partition {} still holds live timers, kept", partition);
+        return Future.succeededFuture(false);
+      }
+
+      logger.info("{} partition {}", archive ? "detaching" : "dropping", partition);
+      return connection.query(archive
+          ? "ALTER TABLE %s DETACH PARTITION %s".formatted(table.name(), partition)
+          : "DROP TABLE IF EXISTS %s".formatted(partition))
+        .execute()
+        .map(true);
+    });
+  }
+
+  private static String lowerBound(LocalDate day) {
+    return day + " 00:00:00+00";
+  }
+
+  private record PartitionedTable(String name, String column, String liveCondition) {
+    String partition(LocalDate day) {
+      return name + "_p" + day.format(PARTITION_SUFFIX);
+    }
+
+    Pattern pattern() {
+      return Pattern.compile(Pattern.quote(name) + "_p(\\d{8})");
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.domain.ShardOwner;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Each heartbeat renews the holder's leases and moves it towards an even share of the shards among the live holders.
+ */
+public class PgShardLeases {
+  private final Pool pool;
+
+  public PgShardLeases(Pool pool) {
+    this.pool = pool;
+  }
+
+  public Future<int[]> heartbeat(String holder, long ttlMillis) {
+    var ttlSeconds = ttlMillis / 1000.0;
+    return pool.withTransaction(tx -> tx.preparedQuery("""
+        INSERT INTO shard_holder (id, heartbeat_at) VALUES ($1, now())
+        ON CONFLICT (id) DO UPDATE SET heartbeat_at = excluded.heartbeat_at
+        """)
+      .execute(Tuple.of(holder))
+      .compose(_v -> tx.preparedQuery("DELETE FROM shard_holder WHERE heartbeat_at < now() - make_interval(secs => $1)")
+        .execute(Tuple.of(ttlSeconds)))
+      .compose(_v -> tx.query("SELECT count(*) AS holders FROM shard_holder").execute())
+      .compose(rows -> {
+        var holders = rows.iterator().next().getLong("holders");
+        var share = share(holders);
+        return tx.preparedQuery("""
+            UPDATE shard_lease
+            SET expires_at = now() + make_interval(secs => $2)
+            WHERE holder = $1
+            RETURNING shard
+            """)
+          .execute(Tuple.of(holder, ttlSeconds))
+          .compose(renewed -> this.rebalance(tx, holder, ttlSeconds, toShards(renewed), share));
+      }));
+  }
+
+  private Future<int[]> rebalance(SqlConnection connection, String holder, double ttlSeconds, int[] owned, int share) {
+    if (owned.length > share) {
+      var released = Arrays.copyOfRange(owned, share, owned.length);
+      return connection.preparedQuery("""
+          UPDATE shard_lease
+          SET holder = NULL, expires_at = '-infinity'
+          WHERE holder = $1 AND shard = ANY($2)
+          """)
+        .execute(releaseArguments(holder, released))
+        .map(Arrays.copyOf(owned, share));
+    }
+
+    if (owned.length == share) {
+      return Future.succeededFuture(owned);
+    }
+
+    return connection.preparedQuery("""
+        UPDATE shard_lease
+        SET holder = $1, expires_at = now() + make_interval(secs => $2)
+        WHERE shard IN (
+          SELECT shard
+          FROM shard_lease
+          WHERE holder IS NULL OR expires_at < now()
+          ORDER BY shard
+          LIMIT $3
+          FOR UPDATE SKIP LOCKED
+        )
+        RETURNING shard
+        """)
+      .execute(Tuple.of(holder, ttlSeconds, share - owned.length))
+      .map(acquired -> IntStream.concat(IntStream.of(owned), IntStream.of(toShards(acquired))).sorted().toArray());
+  }
+
+  static int share(long holders) {
+    return (int) Math.ceil((double) ShardOwner.SHARDS / Math.max(1, holders));
+  }
+
+  /**
+   * The array must stay one parameter: {@code Tuple.of(holder, array)} would spread it over varargs.
+   */
+  static Tuple releaseArguments(String holder, int[] released) {
+    return Tuple.tuple()
+      .addString(holder)
+      .addArrayOfInteger(IntStream.of(released).boxed().toArray(Integer[]::new));
+  }
+
+  private static int[] toShards(RowSet<Row> rows) {
+    List<Integer> shards = new ArrayList<>(rows.size());
+    for (Row row : rows) {
+      shards.add(row.getInteger("shard"));
+    }
+    return shards.stream().mapToInt(Integer::intValue).sorted().toArray();
+  }
+}
@@ -1,58 +1,217 @@
 package clockworks.infrastructure.repository;
 
+import clockworks.domain.MisfirePolicy;
 import clockworks.domain.TimerRepository;
 import clockworks.infrastructure.ClientException;
+import clockworks.infrastructure.MappedWriteStream;
+import clockworks.infrastructure.Meters;
+import clockworks.infrastructure.struct.GroupDeletionDTO;
 import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
+import clockworks.infrastructure.struct.RetryPolicyDTO;
 import clockworks.infrastructure.struct.TimerDTO;
 import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerExecutionDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.pgclient.PgBuilder;
 import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgException;
 import io.vertx.sqlclient.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class PgTimerRepository implements TimerRepository {
   private final Logger logger = LoggerFactory.getLogger(PgTimerRepository.class);
 
-  public static PgTimerRepository create(Context context) {
-    var connectOptions = new PgConnectOptions()
-      .setPort(5432)
-      .setHost("localhost")
-      .setDatabase("clockworks")
-      .setUser("postgres")
-      .setPassword("postgresql")
+  public static final String TIMER_CHANNEL = "clockworks_timer";
+  public static final String DEFINITION_CHANNEL = "clockworks_definition";
+  private static final int CHUNK_SIZE = 1000;
+  private static final int STREAM_FETCH_SIZE = 256;
+  private static final UUID MIN_UUID = new UUID(0, 0);
+  private static final UUID MAX_UUID = new UUID(-1, -1);
+  // raised by "tuple to be locked was already moved to another partition due to concurrent update"
+  private static final String SERIALIZATION_FAILURE = "40001";
+  private static final int CLAIM_ATTEMPTS = 3;
+  /**
+   * Excludes the timers of groups being deleted, so they stop firing as soon as the deletion starts.
+   */
+  private static final String NOT_DELETED = """
+      NOT EXISTS (
+        SELECT 1
+        FROM timer_definition
+        JOIN group_deletion ON group_deletion.group_id = timer_definition.group_id AND group_deletion.finished_at IS NULL
+        WHERE timer_definition.id = timer.definition_id
+      )""";
+  static final String LOCK_DUE_TIMERS = """
+      UPDATE timer
+      SET state = 'RUNNING', locked_at = $1
+      WHERE id IN (
+        SELECT id
+        FROM timer
+        WHERE trigger_time < $1 AND state = 'WAITING' AND shard = ANY($3) AND %s
+        ORDER BY trigger_time
+        LIMIT $2
+        FOR UPDATE SKIP LOCKED
+      )
+      RETURNING id, definition_id, trigger_time, attempt
+      """.formatted(NOT_DELETED);
+  static final String RECOVER_STALE_TIMERS = """
+      UPDATE timer
+      SET state = 'WAITING'
+      WHERE state = 'RUNNING' AND locked_at < $1 AND shard = ANY($2)
+      """;
+  static final String LOCK_TIMERS = """
+      UPDATE timer
+      SET state = 'RUNNING', locked_at = $2
+      WHERE id = ANY($1) AND trigger_time <= $3 AND state = 'WAITING' AND %s
+      RETURNING id, definition_id, trigger_time, attempt
+      """.formatted(NOT_DELETED);
+  private static final String INSERT_TIMER_DEFINITIONS = """
+      INSERT INTO timer_definition (
+          id,
+          group_id,
+          name,
+          description,
+          initial_delay_seconds,
+          interval_seconds,
+          fixed_rate,
+          callback_url,
+          batch_callback,
+          retry_max_attempts,
+          retry_base_delay_millis,
+          retry_max_delay_millis,
+          retry_jitter,
+          misfire_policy,
+          cron_expression,
+          time_zone,
+          updated_at
+      )
+      SELECT * FROM unnest(
+          $1::uuid[],
+          $2::text[],
+          $3::text[],
+          $4::text[],
+          $5::int[],
+          $6::int[],
+          $7::bool[],
+          $8::text[],
+          $9::bool[],
+          $10::int[],
+          $11::bigint[],
+          $12::bigint[],
+          $13::float8[],
+          $14::text[],
+          $15::text[],
+          $16::text[],
+          $17::timestamptz[]
+      )
+      """;
+
+  public static PgConnectOptions connectOptions(JsonObject config) {
+    return new PgConnectOptions()
+      .setPort(config.getInteger("port", 5432))
+      .setHost(config.getString("host", "localhost"))
+      .setDatabase(config.getString("database", "clockworks"))
+      .setUser(config.getString("user", "postgres"))
+      .setPassword(config.getString("password", "postgresql"))
       .setCachePreparedStatements(true);
+  }
 
+  /**
+   * The pool is shared by name between the verticle instances, so its size bounds the connections of the process.
+   */
+  public static PgTimerRepository create(Context context, JsonObject config, int notifyWithinSeconds) {
     var poolOptions = new PoolOptions()
-      .setMaxSize(5);
+      .setMaxSize(config.getInteger("poolMaxSize", 16))
+      .setShared(config.getBoolean("poolShared", true))
+      .setName(config.getString("poolName", "clockworks"));
 
     var sqlClient = PgBuilder
       .pool()
       .with(poolOptions)
-      .connectingTo(connectOptions)
+      .connectingTo(connectOptions(config))
       .using(context.owner())
       .build();
 
-    return new PgTimerRepository(sqlClient);
+    var scheduleInPlace = config.getBoolean("scheduleInPlace", false);
+    return new PgTimerRepository(
+      context.owner(),
+      sqlClient,
+      notifyWithinSeconds,
+      config.getLong("groupCommitWindowMillis", 5L),
+      config.getInteger("groupCommitMaxSize", 100),
+      new PgSchema(
+        context.owner(),
+        sqlClient,
+        config.getInteger("partitionAheadDays", 7),
+        config.getInteger("partitionRetentionDays", 7),
+        config.getBoolean("archivePartitions", false)
+      ),
+      scheduleInPlace,
+      // the executions listing only reads timer_execution: at 0.0 it shows the dead executions alone
+      config.getDouble("historySampleRate", scheduleInPlace ? 1.0 : 0.0)
+    );
   }
 
   private final Pool pool;
+  private final int notifyWithinSeconds;
+  private final GroupCommitWriter<PendingSave> saveWriter;
+  private final GroupCommitWriter<TimerTransitionDTO> transitionWriter;
+  private final PgSchema schema;
+  private final PgShardLeases shardLeases;
+  private final boolean scheduleInPlace;
+  private final double historySampleRate;
 
-  public PgTimerRepository(Pool pool) {
+  public PgTimerRepository(Vertx vertx,
+                           Pool pool,
+                           int notifyWithinSeconds,
+                           long groupCommitWindowMillis,
+                           int groupCommitMaxSize,
+                           PgSchema schema,
+                           boolean scheduleInPlace,
+                           double historySampleRate) {
     this.pool = pool;
+    this.notifyWithinSeconds = notifyWithinSeconds;
+    this.saveWriter = new GroupCommitWriter<>(vertx, groupCommitWindowMillis, groupCommitMaxSize, this::saveAll);
+    this.transitionWriter = new GroupCommitWriter<>(vertx, groupCommitWindowMillis, groupCommitMaxSize, this::transitionAll);
+    this.schema = schema;
+    this.shardLeases = new PgShardLeases(pool);
+    this.scheduleInPlace = scheduleInPlace;
+    this.historySampleRate = historySampleRate;
+  }
+
+  public Future<Void> migrate() {
+    return schema.migrate();
+  }
+
+  @Override
+  public Future<Integer> rotatePartitions(OffsetDateTime now) {
+    return schema.rotatePartitions(now.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate());
+  }
+
+  @Override
+  public Future<int[]> renewShardLeases(String holder, long ttlMillis) {
+    return shardLeases.heartbeat(holder, ttlMillis);
   }
 
   @Override
   public Future<TimerDefinitionDTO> findById(UUID id) {
-    return pool.withConnection(connection -> connection
+    return this.timed("findById", () -> pool.withConnection(connection -> connection
       .preparedQuery("SELECT * FROM timer_definition WHERE id = $1")
       .execute(Tuple.of(id))
       .map(ar -> {
@@ -60,232 +219,674 @@ public class PgTimerRepository implements TimerRepository {
           throw ClientException.illegalRequest("illegal timer id %s", id);
         }
 
-        var row = ar.iterator().next();
-
-        return new TimerDefinitionDTO(
-          row.getUUID("id"),
-          row.getString("group_id"),
-          row.getString("name"),
-          row.getString("description"),
-          row.getInteger("initial_delay_seconds"),
-          row.getInteger("interval_seconds"),
-          row.getBoolean("fixed_rate"),
-          row.getString("callback_url"),
-          row.getOffsetDateTime("updated_at")
-        );
-      }));
+        return toTimerDefinitionDTO(ar.iterator().next());
+      })));
   }
 
   @Override
   public Future<Void> save(TimerDefinitionDTO definitionDTO, TimerDTO timerDTO) {
-    return pool.withConnection(connection ->
-      existTimerDefinition(connection, definitionDTO.definitionId()).compose(existed ->
-        pool.withTransaction(tx -> {
-          if (existed) {
-            logger.debug("updating timer definition {}", definitionDTO.definitionId());
-            return suspendWaitingTimer(tx, definitionDTO.definitionId())
-              .flatMap(_v -> updateTimerDefinition(tx, definitionDTO))
-              .flatMap(_v -> insertTimer(tx, timerDTO));
-          }
+    return saveWriter.submit(new PendingSave(definitionDTO, timerDTO));
+  }
 
-          logger.debug("creating timer definition {}", definitionDTO.definitionId());
-          return insertTimerDefinition(tx, definitionDTO)
-            .flatMap(_v -> insertTimer(tx, timerDTO));
-        })));
+  private Future<Void> saveAll(List<PendingSave> saves) {
+    var definitions = saves.stream().map(PendingSave::definitionDTO).toList();
+    var timers = saves.stream().map(PendingSave::timerDTO).toList();
+    logger.debug("saving {} timer definitions", definitions.size());
+
+    return this.timed("save", () -> pool.withTransaction(tx -> retireWaitingTimers(tx, definitions)
+      .flatMap(_v -> upsertTimerDefinitions(tx, definitions))
+      .flatMap(_v -> insertTimers(tx, timers))));
   }
 
   @Override
   public Future<Void> save(GroupTimerDefinitionDTO definitionDTO, List<TimerDTO> timers) {
-    return Future.failedFuture(new UnsupportedOperationException("not impl"));
+    return this.timed("saveGroup", () -> pool.withTransaction(tx -> checkNotDeleting(tx, definitionDTO.groupId())
+      .flatMap(_v -> upsertTimerGroup(tx, definitionDTO))
+      .flatMap(_v -> insertGroupChunk(tx, definitionDTO.timers(), timers, 0))));
   }
 
-  private Future<Boolean> existTimerDefinition(SqlConnection connection, UUID definitionId) {
-    return connection.preparedQuery("SELECT COUNT(*) FROM timer_definition WHERE id = $1")
-      .execute(Tuple.of(definitionId))
+  private Future<Void> checkNotDeleting(SqlConnection connection, String groupId) {
+    return connection.preparedQuery("SELECT 1 FROM group_deletion WHERE group_id = $1 AND finished_at IS NULL")
+      .execute(Tuple.of(groupId))
       .map(rows -> {
-        var row = rows.iterator().next();
-        var count = row.getInteger("count");
-        return count == 1;
+        if (rows.size() > 0) {
+          throw ClientException.illegalRequest("group %s is being deleted", groupId);
+        }
+        return null;
       });
   }
 
-  private Future<Void> suspendWaitingTimer(SqlConnection connection, UUID definitionId) {
-    return connection.preparedQuery("""
-        UPDATE timer
-        SET state = 'SUSPENDED'
-        WHERE definition_id = $1 AND state = 'WAITING'
-        """)
-      .execute(Tuple.of(definitionId)).mapEmpty();
-  }
+  private Future<Void> insertGroupChunk(SqlConnection connection,
+                                        List<TimerDefinitionDTO> definitions,
+                                        List<TimerDTO> timers,
+                                        int from) {
+    if (from >= definitions.size()) {
+      return Future.succeededFuture();
+    }
 
-  private Future<Void> updateTimerDefinition(SqlConnection connection, TimerDefinitionDTO definitionDTO) {
-    return connection.preparedQuery("""
-        UPDATE timer_definitions
-        SET
-            group_id = $1,
-            timer_name = $2,
-            timer_description = $3,
-            initial_delay_seconds = $4,
-            interval_seconds = $5,
-            fixed_rate = $6,
-            callback_url = $7,
-            updated_at = $8
-        WHERE id = $9;
-        """)
-      .execute(Tuple.of(
-        definitionDTO.groupId(),
-        definitionDTO.timerName(),
-        definitionDTO.timerDescription(),
-        definitionDTO.initialDelaySeconds(),
-        definitionDTO.intervalSeconds(),
-        definitionDTO.fixedRate(),
-        definitionDTO.callbackUrl(),
-        definitionDTO.updatedAt(),
-        definitionDTO.definitionId()
-      ))
-      .mapEmpty();
+    var to = Math.min(from + CHUNK_SIZE, definitions.size());
+    logger.debug("inserting group timers {} to {} of {}", from, to, definitions.size());
+    return insertTimerDefinitions(connection, definitions.subList(from, to))
+      .flatMap(_v -> insertTimers(connection, timers.subList(from, to)))
+      .flatMap(_v -> insertGroupChunk(connection, definitions, timers, to));
   }
 
-  private Future<Void> insertTimerDefinition(SqlConnection connection, TimerDefinitionDTO definitionDTO) {
+  private Future<Void> upsertTimerGroup(SqlConnection connection, GroupTimerDefinitionDTO definitionDTO) {
     return connection.preparedQuery("""
-        INSERT INTO timer_definition (
+        INSERT INTO timer_group (
             id,
-            group_id,
             name,
             description,
-            initial_delay_seconds,
-            interval_seconds,
-            fixed_rate,
-            callback_url,
             updated_at
-        ) VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9)
+        ) VALUES ($1, $2, $3, $4)
+        ON CONFLICT (id) DO UPDATE SET
+            name = excluded.name,
+            description = excluded.description,
+            updated_at = excluded.updated_at
         """)
       .execute(Tuple.of(
-        definitionDTO.definitionId(),
         definitionDTO.groupId(),
-        definitionDTO.timerName(),
-        definitionDTO.timerDescription(),
-        definitionDTO.initialDelaySeconds(),
-        definitionDTO.intervalSeconds(),
-        definitionDTO.fixedRate(),
-        definitionDTO.callbackUrl(),
+        definitionDTO.groupName(),
+        definitionDTO.groupDescription(),
         definitionDTO.updatedAt()
       ))
       .mapEmpty();
   }
 
-  private Future<Void> insertTimer(SqlConnection connection, TimerDTO timerDTO) {
+  private Future<Void> retireWaitingTimers(SqlConnection connection, List<TimerDefinitionDTO> definitions) {
+    return connection.preparedQuery(scheduleInPlace
+        ? "DELETE FROM timer WHERE definition_id = ANY($1) AND state = 'WAITING'"
+        : "UPDATE timer SET state = 'SUSPENDED' WHERE definition_id = ANY($1) AND state = 'WAITING'")
+      .execute(Tuple.of(definitions.stream().map(TimerDefinitionDTO::definitionId).toArray(UUID[]::new)))
+      .mapEmpty();
+  }
+
+  private Future<Void> upsertTimerDefinitions(SqlConnection connection, List<TimerDefinitionDTO> definitions) {
+    return connection.preparedQuery("WITH upserted AS (" + INSERT_TIMER_DEFINITIONS + """
+        ON CONFLICT (id) DO UPDATE SET
+            group_id = excluded.group_id,
+            name = excluded.name,
+            description = excluded.description,
+            initial_delay_seconds = excluded.initial_delay_seconds,
+            interval_seconds = excluded.interval_seconds,
+            fixed_rate = excluded.fixed_rate,
+            callback_url = excluded.callback_url,
+            batch_callback = excluded.batch_callback,
+            retry_max_attempts = excluded.retry_max_attempts,
+            retry_base_delay_millis = excluded.retry_base_delay_millis,
+            retry_max_delay_millis = excluded.retry_max_delay_millis,
+            retry_jitter = excluded.retry_jitter,
+            misfire_policy = excluded.misfire_policy,
+            cron_expression = excluded.cron_expression,
+            time_zone = excluded.time_zone,
+            updated_at = excluded.updated_at
+        RETURNING id, xmax <> 0 AS updated
+        )
+        SELECT pg_notify($18, json_build_object('definitionId', id)::text)
+        FROM upserted
+        WHERE updated
+        """)
+      .execute(timerDefinitionsTuple(definitions).addValue(DEFINITION_CHANNEL))
+      .mapEmpty();
+  }
+
+  private Future<Void> insertTimerDefinitions(SqlConnection connection, List<TimerDefinitionDTO> definitions) {
+    return connection.preparedQuery(INSERT_TIMER_DEFINITIONS)
+      .execute(timerDefinitionsTuple(definitions))
+      .mapEmpty();
+  }
+
+  private static Tuple timerDefinitionsTuple(List<TimerDefinitionDTO> definitions) {
+    return Tuple.of(
+      definitions.stream().map(TimerDefinitionDTO::definitionId).toArray(UUID[]::new),
+      definitions.stream().map(TimerDefinitionDTO::groupId).toArray(String[]::new),
+      definitions.stream().map(TimerDefinitionDTO::timerName).toArray(String[]::new),
+      definitions.stream().map(TimerDefinitionDTO::timerDescription).toArray(String[]::new),
+      definitions.stream().map(TimerDefinitionDTO::initialDelaySeconds).toArray(Integer[]::new),
+      definitions.stream().map(TimerDefinitionDTO::intervalSeconds).toArray(Integer[]::new),
+      definitions.stream().map(TimerDefinitionDTO::fixedRate).toArray(Boolean[]::new),
+      definitions.stream().map(TimerDefinitionDTO::callbackUrl).toArray(String[]::new),
+      definitions.stream().map(TimerDefinitionDTO::batchCallback).toArray(Boolean[]::new),
+      definitions.stream().map(v -> v.retryPolicy().maxAttempts()).toArray(Integer[]::new),
+      definitions.stream().map(v -> v.retryPolicy().baseDelayMillis()).toArray(Long[]::new),
+      definitions.stream().map(v -> v.retryPolicy().maxDelayMillis()).toArray(Long[]::new),
+      definitions.stream().map(v -> v.retryPolicy().jitter()).toArray(Double[]::new),
+      definitions.stream().map(v -> v.misfirePolicy().name()).toArray(String[]::new),
+      definitions.stream().map(TimerDefinitionDTO::cronExpression).toArray(String[]::new),
+      definitions.stream().map(TimerDefinitionDTO::timeZone).toArray(String[]::new),
+      definitions.stream().map(TimerDefinitionDTO::updatedAt).toArray(OffsetDateTime[]::new)
+    );
+  }
+
+  private Future<Void> insertTimers(SqlConnection connection, List<TimerDTO> timers) {
     return connection.preparedQuery("""
-        INSERT INTO timer (
-          id,
-          definition_id,
-          trigger_time,
-          state
-        ) VALUES ($1, $2, $3, $4)
+        WITH inserted AS (
+          INSERT INTO timer (
+            id,
+            definition_id,
+            trigger_time,
+            state,
+            attempt,
+            shard
+          )
+          SELECT id, definition_id, trigger_time, 'WAITING', attempt, timer_shard(definition_id)
+          FROM unnest($1::uuid[], $2::uuid[], $3::timestamptz[], $4::int[])
+            AS t(id, definition_id, trigger_time, attempt)
+          RETURNING id, definition_id, trigger_time, attempt, shard
+        )
+        SELECT pg_notify($6, json_build_object(
+          'timerId', id,
+          'definitionId', definition_id,
+          'triggerTime', trigger_time,
+          'attempt', attempt,
+          'shard', shard
+        )::text)
+        FROM inserted
+        WHERE trigger_time < $5
         """)
       .execute(Tuple.of(
-        timerDTO.timerId(),
-        timerDTO.definitionId(),
-        timerDTO.triggerTime(),
-        "WAITING"
+        timers.stream().map(TimerDTO::timerId).toArray(UUID[]::new),
+        timers.stream().map(TimerDTO::definitionId).toArray(UUID[]::new),
+        timers.stream().map(TimerDTO::triggerTime).toArray(OffsetDateTime[]::new),
+        timers.stream().map(TimerDTO::attempt).toArray(Integer[]::new),
+        OffsetDateTime.now().plusSeconds(notifyWithinSeconds),
+        TIMER_CHANNEL
       ))
       .mapEmpty();
   }
 
   @Override
   public Future<Void> deleteTimerDefinition(UUID timerDefinitionId) {
-    return pool.withTransaction(connection -> connection.preparedQuery("""
-        DELETE FROM timer WHERE definition_id = $1;
-        DELETE FROM timer_definition WHERE id = $1;
-        """)
+    return this.timed("deleteTimerDefinition", () -> pool.withTransaction(tx -> tx.preparedQuery("DELETE FROM timer WHERE definition_id = $1")
       .execute(Tuple.of(timerDefinitionId))
-      .mapEmpty());
+      .flatMap(_v -> tx.preparedQuery("DELETE FROM timer_definition WHERE id = $1")
+        .execute(Tuple.of(timerDefinitionId)))
+      .flatMap(_v -> notifyDefinitionChanged(tx, "definitionId", timerDefinitionId.toString()))));
   }
 
   @Override
-  public Future<Void> deleteGroup(String groupId) {
-    return pool.withConnection(connection ->
-      connection.preparedQuery("SELECT id FROM timer_definition WHERE group_id = $1")
-        .execute(Tuple.of(groupId))
-        .map(rows -> {
-          var ids = new ArrayList<UUID>();
-          rows.forEach(row -> ids.add(row.getUUID("id")));
-          return ids;
-        })
-        .compose(ids -> pool.withTransaction(tx -> tx.preparedQuery("""
-            DELETE FROM timer WHERE definition_id in $1;
-            DELETE FROM timer_definition WHERE group_id = $2;
-            """)
-          .execute(Tuple.of(ids, groupId))
-          .mapEmpty())));
+  public Future<GroupDeletionDTO> startGroupDeletion(String groupId, UUID deletionId) {
+    return this.timed("startGroupDeletion", () -> pool.withTransaction(tx -> this.startGroupDeletion(tx, groupId, deletionId)
+      .compose(deletionDTO -> notifyDefinitionChanged(tx, "groupId", groupId).map(deletionDTO))));
+  }
+
+  /**
+   * A deletion of the group committed meanwhile makes the insert do nothing, but the statement's snapshot predates
+   * it and returns no row; the statement is run again with a fresh snapshot.
+   */
+  private Future<GroupDeletionDTO> startGroupDeletion(SqlConnection connection, String groupId, UUID deletionId) {
+    return connection.preparedQuery("""
+        WITH started AS (
+          INSERT INTO group_deletion (id, group_id, started_at)
+          VALUES ($1, $2, $3)
+          ON CONFLICT (group_id) WHERE finished_at IS NULL DO NOTHING
+          RETURNING *
+        )
+        SELECT * FROM started
+        UNION ALL
+        SELECT * FROM group_deletion WHERE group_id = $2 AND finished_at IS NULL
+        """)
+      .execute(Tuple.of(deletionId, groupId, OffsetDateTime.now()))
+      .compose(rows -> rows.size() == 0
+        ? this.startGroupDeletion(connection, groupId, deletionId)
+        : Future.succeededFuture(toGroupDeletionDTO(rows.iterator().next())));
   }
 
   @Override
-  public Future<Void> save(TimerDTO timerDTO) {
-    return pool.withConnection(connection -> this.insertTimer(connection, timerDTO));
+  public Future<GroupDeletionDTO> findGroupDeletion(UUID deletionId) {
+    return this.timed("findGroupDeletion", () -> pool.withConnection(connection -> connection
+      .preparedQuery("SELECT * FROM group_deletion WHERE id = $1")
+      .execute(Tuple.of(deletionId))
+      .map(rows -> {
+        if (rows.size() != 1) {
+          throw ClientException.illegalRequest("illegal deletion id %s", deletionId);
+        }
+        return toGroupDeletionDTO(rows.iterator().next());
+      })));
   }
 
   @Override
-  public Future<Void> updateCallResult(UUID timerId, boolean called) {
-    return this.updateTimerState(timerId, called ? "FINISHED" : "RUNNING").mapEmpty();
+  public Future<List<GroupDeletionDTO>> findRunningGroupDeletions() {
+    return this.timed("findRunningGroupDeletions", () -> pool.withConnection(connection -> connection
+      .preparedQuery("SELECT * FROM group_deletion WHERE finished_at IS NULL")
+      .execute()
+      .map(rows -> {
+        var deletions = new ArrayList<GroupDeletionDTO>(rows.size());
+        rows.forEach(row -> deletions.add(toGroupDeletionDTO(row)));
+        return deletions;
+      })));
   }
 
+  /**
+   * Definitions locked by a concurrent chunk are skipped, so several instances may work on the same deletion.
+   */
   @Override
-  public Future<TimerDTO> lockOneTimer() {
-    return pool.withConnection(connection ->
-      connection.preparedQuery("SELECT * FROM timer WHERE trigger_time < $1 AND state = 'WAITING' LIMIT 30")
-        .execute(Tuple.of(OffsetDateTime.now()))
-        .map(ar -> {
-          if (ar.size() == 0) {
-            return null;
+  public Future<GroupDeletionDTO> deleteGroupChunk(UUID deletionId, int max) {
+    return this.timed("deleteGroupChunk", () -> pool.withConnection(connection -> connection.preparedQuery("""
+          WITH chunk AS (
+            SELECT timer_definition.id
+            FROM timer_definition
+            JOIN group_deletion ON group_deletion.group_id = timer_definition.group_id
+            WHERE group_deletion.id = $1 AND group_deletion.finished_at IS NULL
+            LIMIT $2
+            FOR UPDATE OF timer_definition SKIP LOCKED
+          ),
+          chunk_timers AS (
+            DELETE FROM timer WHERE definition_id IN (SELECT id FROM chunk)
+          ),
+          deleted AS (
+            DELETE FROM timer_definition WHERE id IN (SELECT id FROM chunk) RETURNING id
+          )
+          UPDATE group_deletion
+          SET deleted_definitions = deleted_definitions + (SELECT count(*) FROM deleted)
+          WHERE id = $1
+          RETURNING *, (SELECT count(*) FROM deleted) AS chunk_size
+          """)
+        .execute(Tuple.of(deletionId, max))
+        .compose(rows -> {
+          if (rows.size() == 1 && rows.iterator().next().getInteger("chunk_size") > 0) {
+            return Future.succeededFuture(toGroupDeletionDTO(rows.iterator().next()));
           }
 
-          if (ar.size() == 1) {
-            var row = ar.iterator().next();
+          return connection.preparedQuery("""
+              WITH finished AS (
+                UPDATE group_deletion
+                SET finished_at = $2
+                WHERE id = $1 AND finished_at IS NULL AND NOT EXISTS (
+                  SELECT 1 FROM timer_definition WHERE timer_definition.group_id = group_deletion.group_id
+                )
+                RETURNING *
+              ),
+              deleted_group AS (
+                DELETE FROM timer_group WHERE id IN (SELECT group_id FROM finished)
+              )
+              SELECT * FROM finished
+              """)
+            .execute(Tuple.of(deletionId, OffsetDateTime.now()))
+            .compose(finished -> finished.size() == 1
+              ? Future.succeededFuture(toGroupDeletionDTO(finished.iterator().next()))
+              : this.findGroupDeletion(deletionId));
+        })));
+  }
 
-            return new TimerDTO(
-              row.getUUID("id"),
-              row.getUUID("definition_id"),
-              row.getOffsetDateTime("trigger_time")
-            );
-          }
+  private Future<Void> notifyDefinitionChanged(SqlConnection connection, String key, String value) {
+    return connection.preparedQuery("SELECT pg_notify($1, $2)")
+      .execute(Tuple.of(DEFINITION_CHANNEL, new JsonObject().put(key, value).encode()))
+      .mapEmpty();
+  }
 
-          var timers = new ArrayList<Row>();
-          for (Row row : ar) {
-            timers.add(row);
-          }
-          Collections.shuffle(timers);
-          var row = timers.get(0);
-          return new TimerDTO(
-            row.getUUID("id"),
-            row.getUUID("definition_id"),
-            row.getOffsetDateTime("trigger_time")
-          );
-        })
-        .compose(timerDTO -> {
-          if (timerDTO == null) {
-            return Future.succeededFuture();
-          }
+  @Override
+  public Future<Void> transition(List<TimerTransitionDTO> transitions) {
+    return Future.all(transitions.stream().map(transitionWriter::submit).toList()).mapEmpty();
+  }
 
-          return this.updateTimerState(
-            timerDTO.timerId(),
-            "RUNNING"
-          ).compose(updated -> {
-            if (updated) {
-              logger.debug("lock timer {}", timerDTO.timerId());
-              return Future.succeededFuture(timerDTO);
-            }
-
-            return Future.succeededFuture();
-          });
-        })
+  private Future<Void> transitionAll(List<TimerTransitionDTO> transitions) {
+    var planned = transitions.stream().map(this::plan).toList();
+    var inserts = planned.stream().filter(v -> v.insertedTimer() != null).toList();
+    return this.timed("transition", () -> pool.withConnection(connection -> connection.preparedQuery("""
+        WITH transition AS (
+          SELECT *
+          FROM unnest(
+            $1::uuid[], $2::text[], $3::int[], $4::text[], $5::bool[], $6::text[], $7::int[], $8::timestamptz[]
+          ) AS t(id, outcome, outcome_attempt, result, recorded, state, attempt, trigger_time)
+        ),
+        locked AS (
+          SELECT
+              timer.id,
+              timer.definition_id,
+              timer.trigger_time AS fired_trigger_time,
+              transition.outcome,
+              transition.outcome_attempt,
+              transition.result,
+              transition.recorded,
+              transition.state,
+              transition.attempt,
+              transition.trigger_time
+          FROM timer
+          JOIN transition ON transition.id = timer.id
+          WHERE timer.state = 'RUNNING'
+          FOR UPDATE OF timer
+        ),
+        updated AS (
+          UPDATE timer
+          SET
+              state = locked.state,
+              attempt = locked.attempt,
+              trigger_time = COALESCE(locked.trigger_time, timer.trigger_time)
+          FROM locked
+          WHERE timer.id = locked.id AND locked.state IS NOT NULL
+          RETURNING timer.id, timer.definition_id, timer.trigger_time, timer.attempt, timer.state, timer.shard
+        ),
+        deleted AS (
+          DELETE FROM timer
+          USING locked
+          WHERE timer.id = locked.id AND locked.state IS NULL
+        ),
+        recorded AS (
+          INSERT INTO timer_execution (
+            timer_id,
+            definition_id,
+            trigger_time,
+            state,
+            result,
+            attempt,
+            executed_at
+          )
+          SELECT id, definition_id, fired_trigger_time, outcome, result, outcome_attempt, now()
+          FROM locked
+          WHERE recorded
+        ),
+        inserted AS (
+          INSERT INTO timer (
+            id,
+            definition_id,
+            trigger_time,
+            state,
+            attempt,
+            shard
+          )
+          SELECT next.id, next.definition_id, next.trigger_time, 'WAITING', 0, timer_shard(next.definition_id)
+          FROM unnest($9::uuid[], $10::uuid[], $11::timestamptz[], $12::uuid[])
+            AS next(id, definition_id, trigger_time, previous_id)
+          JOIN locked ON locked.id = next.previous_id
+          RETURNING id, definition_id, trigger_time, attempt, shard
+        )
+        SELECT pg_notify($14, json_build_object(
+          'timerId', id,
+          'definitionId', definition_id,
+          'triggerTime', trigger_time,
+          'attempt', attempt,
+          'shard', shard
+        )::text)
+        FROM (
+          SELECT id, definition_id, trigger_time, attempt, shard FROM inserted
+          UNION ALL
+          SELECT id, definition_id, trigger_time, attempt, shard FROM updated WHERE state = 'WAITING'
+        ) AS notified
+        WHERE trigger_time < $13
+        """)
+      .execute(Tuple.of(
+        planned.stream().map(v -> v.transition().timerId()).toArray(UUID[]::new),
+        planned.stream().map(v -> v.transition().state().name()).toArray(String[]::new),
+        planned.stream().map(v -> v.transition().attempt()).toArray(Integer[]::new),
+        planned.stream().map(v -> v.transition().result() == null ? null : v.transition().result().name()).toArray(String[]::new),
+        planned.stream().map(PlannedTransition::recorded).toArray(Boolean[]::new),
+        planned.stream().map(v -> v.state() == null ? null : v.state().name()).toArray(String[]::new),
+        planned.stream().map(PlannedTransition::attempt).toArray(Integer[]::new),
+        planned.stream().map(PlannedTransition::triggerTime).toArray(OffsetDateTime[]::new),
+        inserts.stream().map(v -> v.insertedTimer().timerId()).toArray(UUID[]::new),
+        inserts.stream().map(v -> v.insertedTimer().definitionId()).toArray(UUID[]::new),
+        inserts.stream().map(v -> v.insertedTimer().triggerTime()).toArray(OffsetDateTime[]::new),
+        inserts.stream().map(v -> v.transition().timerId()).toArray(UUID[]::new),
+        OffsetDateTime.now().plusSeconds(notifyWithinSeconds),
+        TIMER_CHANNEL
+      ))
+      .onSuccess(rows -> logger.debug("transition {} timers, {} next timers", transitions.size(), inserts.size()))
+      .mapEmpty()));
+  }
+
+  /**
+   * In place, a terminal outcome rewinds the fired row to its next occurrence, or deletes it when there is none.
+   */
+  private PlannedTransition plan(TimerTransitionDTO transition) {
+    var recorded = transition.result() != null
+      && (transition.state() == TimerStateEnum.DEAD || ThreadLocalRandom.current().nextDouble() < historySampleRate);
+    var terminal = transition.state() == TimerStateEnum.FINISHED
+      || transition.state() == TimerStateEnum.DEAD
+      || transition.state() == TimerStateEnum.SUSPENDED;
+    if (!scheduleInPlace || !terminal) {
+      return new PlannedTransition(transition, recorded, transition.state(), transition.attempt(),
+        transition.triggerTime(), transition.nextTimer());
+    }
+
+    var nextTimer = transition.nextTimer();
+    if (nextTimer == null) {
+      return new PlannedTransition(transition, recorded, null, transition.attempt(), null, null);
+    }
+
+    return new PlannedTransition(transition, recorded, TimerStateEnum.WAITING, 0, nextTimer.triggerTime(), null);
+  }
+
+  @Override
+  public Future<Integer> recoverStaleTimers(int[] shards, OffsetDateTime lockedBefore) {
+    return this.timed("recoverStaleTimers", () -> pool.withConnection(connection -> connection.preparedQuery(RECOVER_STALE_TIMERS)
+      .execute(Tuple.of(lockedBefore, toIntegers(shards)))
+      .map(SqlResult::rowCount)));
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findDeadTimers(int max) {
+    return this.timed("findDeadTimers", () -> pool.withConnection(connection ->
+      connection.preparedQuery("""
+          SELECT timer_id AS id, definition_id, trigger_time, attempt
+          FROM timer_execution
+          WHERE state = 'DEAD'
+          ORDER BY executed_at DESC
+          LIMIT $1
+          """)
+        .execute(Tuple.of(max))
+        .map(PgTimerRepository::toTimerDTOs)));
+  }
+
+  @Override
+  public Future<Void> pipeTimerDefinitions(String groupId,
+                                           UUID after,
+                                           int limit,
+                                           WriteStream<TimerDefinitionDTO> destination) {
+    var afterId = after == null ? MIN_UUID : after;
+    if (groupId == null) {
+      return this.pipe("pipeTimerDefinitions", """
+          SELECT *
+          FROM timer_definition
+          WHERE id > $1
+          ORDER BY id
+          LIMIT $2
+          """, Tuple.of(afterId, limit), PgTimerRepository::toTimerDefinitionDTO, destination);
+    }
+
+    return this.pipe("pipeGroupTimerDefinitions", """
+        SELECT *
+        FROM timer_definition
+        WHERE group_id = $1 AND id > $2
+        ORDER BY id
+        LIMIT $3
+        """, Tuple.of(groupId, afterId, limit), PgTimerRepository::toTimerDefinitionDTO, destination);
+  }
+
+  @Override
+  public Future<Void> pipeTimerExecutions(UUID definitionId,
+                                          OffsetDateTime beforeExecutedAt,
+                                          UUID beforeTimerId,
+                                          int limit,
+                                          WriteStream<TimerExecutionDTO> destination) {
+    if (beforeExecutedAt == null) {
+      return this.pipe("pipeTimerExecutions", """
+          SELECT *
+          FROM timer_execution
+          WHERE definition_id = $1
+          ORDER BY executed_at DESC, timer_id DESC
+          LIMIT $2
+          """, Tuple.of(definitionId, limit), PgTimerRepository::toTimerExecutionDTO, destination);
+    }
+
+    var beforeId = beforeTimerId == null ? MAX_UUID : beforeTimerId;
+    return this.pipe("pipeTimerExecutionsBefore", """
+        SELECT *
+        FROM timer_execution
+        WHERE definition_id = $1 AND (executed_at, timer_id) < ($2, $3)
+        ORDER BY executed_at DESC, timer_id DESC
+        LIMIT $4
+        """, Tuple.of(definitionId, beforeExecutedAt, beforeId, limit), PgTimerRepository::toTimerExecutionDTO, destination);
+  }
+
+  /**
+   * Postgres only keeps a cursor open inside a transaction.
+   */
+  private <T> Future<Void> pipe(String statementName,
+                                String sql,
+                                Tuple arguments,
+                                Function<Row, T> mapper,
+                                WriteStream<T> destination) {
+    return this.timed(statementName, () -> pool.withTransaction(tx -> tx.prepare(sql)
+      .compose(statement -> statement.createStream(STREAM_FETCH_SIZE, arguments)
+        .pipeTo(new MappedWriteStream<>(destination, mapper)))));
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockDueTimers(int[] shards, int max) {
+    return this.timed("lockDueTimers", () -> this.retryMovedRows(() -> pool.withConnection(connection ->
+      connection.preparedQuery(LOCK_DUE_TIMERS)
+        .execute(Tuple.of(OffsetDateTime.now(), max, toIntegers(shards)))
+        .map(rows -> {
+          var timers = toTimerDTOs(rows);
+          logger.debug("lock {} timers", timers.size());
+          return timers;
+        })), CLAIM_ATTEMPTS));
+  }
+
+  @Override
+  public Future<List<TimerDTO>> findWaitingTimers(int[] shards, OffsetDateTime until, int max) {
+    return this.timed("findWaitingTimers", () -> pool.withConnection(connection ->
+      connection.preparedQuery("""
+          SELECT id, definition_id, trigger_time, attempt
+          FROM timer
+          WHERE trigger_time < $1 AND state = 'WAITING' AND shard = ANY($3)
+          ORDER BY trigger_time
+          LIMIT $2
+          """)
+        .execute(Tuple.of(until, max, toIntegers(shards)))
+        .map(PgTimerRepository::toTimerDTOs)));
+  }
+
+  @Override
+  public Future<Integer> countDueTimers(int[] shards, int max) {
+    return this.timed("countDueTimers", () -> pool.withConnection(connection ->
+      connection.preparedQuery("""
+          SELECT count(*) AS due
+          FROM (
+            SELECT 1
+            FROM timer
+            WHERE trigger_time < $1 AND state = 'WAITING' AND shard = ANY($3)
+            LIMIT $2
+          ) due
+          """)
+        .execute(Tuple.of(OffsetDateTime.now(), max, toIntegers(shards)))
+        .map(rows -> rows.iterator().next().getInteger("due"))));
+  }
+
+  @Override
+  public Future<List<TimerDTO>> lockTimers(List<UUID> timerIds, OffsetDateTime until) {
+    return this.timed("lockTimers", () -> this.retryMovedRows(() -> pool.withConnection(connection ->
+      connection.preparedQuery(LOCK_TIMERS)
+        .execute(Tuple.of(timerIds.toArray(UUID[]::new), OffsetDateTime.now(), until))
+        .map(rows -> {
+          var timers = toTimerDTOs(rows);
+          logger.debug("lock {} of {} timers", timers.size(), timerIds.size());
+          return timers;
+        })), CLAIM_ATTEMPTS));
+  }
+
+  /**
+   * A transition moving a timer to another trigger time moves it to another partition, and a claim locking that row
+   * concurrently fails instead of skipping it; a new statement no longer sees the old row.
+   */
+  private <T> Future<T> retryMovedRows(Supplier<Future<T>> claim, int attempts) {
+    return claim.get().recover(failure -> {
+      if (attempts <= 1 || !movedRow(failure)) {
+        return Future.failedFuture(failure);
+      }
+      logger.debug("retry claim of a timer moved to another partition");
+      return this.retryMovedRows(claim, attempts - 1);
+    });
+  }
+
+  static boolean movedRow(Throwable failure) {
+    return failure instanceof PgException pgException && SERIALIZATION_FAILURE.equals(pgException.getSqlState());
+  }
+
+  private <T> Future<T> timed(String statement, Supplier<Future<T>> query) {
+    var sample = Timer.start();
+    return query.get().onComplete(ar -> sample.stop(Timer.builder("clockworks.pg.statement")
+      .tag("statement", statement)
+      .tag("outcome", ar.succeeded() ? "success" : "failure")
+      .register(Meters.registry())));
+  }
+
+  private static Integer[] toIntegers(int[] values) {
+    return IntStream.of(values).boxed().toArray(Integer[]::new);
+  }
+
+  private static List<TimerDTO> toTimerDTOs(RowSet<Row> rows) {
+    var timers = new ArrayList<TimerDTO>(rows.size());
+    for (Row row : rows) {
+      timers.add(toTimerDTO(row));
+    }
+    return timers;
+  }
+
+  private static TimerDefinitionDTO toTimerDefinitionDTO(Row row) {
+    return new TimerDefinitionDTO(
+      row.getUUID("id"),
+      row.getString("group_id"),
+      row.getString("name"),
+      row.getString("description"),
+      row.getInteger("initial_delay_seconds"),
+      row.getInteger("interval_seconds"),
+      row.getBoolean("fixed_rate"),
+      row.getString("callback_url"),
+      row.getBoolean("batch_callback"),
+      new RetryPolicyDTO(
+        row.getInteger("retry_max_attempts"),
+        row.getLong("retry_base_delay_millis"),
+        row.getLong("retry_max_delay_millis"),
+        row.getDouble("retry_jitter")
+      ),
+      MisfirePolicy.valueOf(row.getString("misfire_policy")),
+      row.getString("cron_expression"),
+      row.getString("time_zone"),
+      row.getOffsetDateTime("updated_at")
     );
   }
 
-  private Future<Boolean> updateTimerState(UUID timerId, String state) {
-    return pool.withConnection(connection ->
-      connection.preparedQuery("UPDATE timer SET state = $1 WHERE id = $2")
-        .execute(Tuple.of(state, timerId))
-        .map(rows -> rows.rowCount() == 1));
+  private static TimerExecutionDTO toTimerExecutionDTO(Row row) {
+    return new TimerExecutionDTO(
+      row.getUUID("timer_id"),
+      row.getUUID("definition_id"),
+      row.getOffsetDateTime("trigger_time"),
+      row.getString("state"),
+      row.getString("result"),
+      row.getInteger("attempt"),
+      row.getOffsetDateTime("executed_at")
+    );
+  }
+
+  private static GroupDeletionDTO toGroupDeletionDTO(Row row) {
+    return new GroupDeletionDTO(
+      row.getUUID("id"),
+      row.getString("group_id"),
+      row.getInteger("deleted_definitions"),
+      row.getOffsetDateTime("started_at"),
+      row.getOffsetDateTime("finished_at")
+    );
+  }
+
+  private static TimerDTO toTimerDTO(Row row) {
+    return new TimerDTO(
+      row.getUUID("id"),
+      row.getUUID("definition_id"),
+      row.getOffsetDateTime("trigger_time"),
+      row.getInteger("attempt")
+    );
+  }
+
+  private record PendingSave(TimerDefinitionDTO definitionDTO, TimerDTO timerDTO) {
+  }
+
+  private record PlannedTransition(TimerTransitionDTO transition,
+                                   boolean recorded,
+                                   TimerStateEnum state,
+                                   int attempt,
+                                   OffsetDateTime triggerTime,
+                                   TimerDTO insertedTimer) {
   }
 }
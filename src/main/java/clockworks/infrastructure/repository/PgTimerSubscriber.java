@@ -0,0 +1,98 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.infrastructure.struct.TimerDTO;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.pgclient.pubsub.PgSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.function.IntPredicate;
+
+public class PgTimerSubscriber {
+  private static final long RECONNECT_DELAY_MILLIS = 1000L;
+  private final Logger logger = LoggerFactory.getLogger(PgTimerSubscriber.class);
+
+  public static PgTimerSubscriber create(Vertx vertx, JsonObject config) {
+    var subscriber = PgSubscriber.subscriber(vertx, PgTimerRepository.connectOptions(config))
+      .reconnectPolicy(retries -> RECONNECT_DELAY_MILLIS);
+    return new PgTimerSubscriber(vertx, subscriber);
+  }
+
+  private final Vertx vertx;
+  private final PgSubscriber subscriber;
+  private IntPredicate shardFilter = shard -> true;
+
+  public PgTimerSubscriber(Vertx vertx, PgSubscriber subscriber) {
+    this.vertx = vertx;
+    this.subscriber = subscriber;
+  }
+
+  public PgTimerSubscriber definitionHandler(Handler<JsonObject> definitionHandler) {
+    subscriber.channel(PgTimerRepository.DEFINITION_CHANNEL)
+      .handler(payload -> {
+        JsonObject json;
+        try {
+          json = new JsonObject(payload);
+        } catch (RuntimeException e) {
+          logger.warn("illegal definition notification {}", payload, e);
+          return;
+        }
+
+        logger.debug("notified definition {}", payload);
+        definitionHandler.handle(json);
+      });
+    return this;
+  }
+
+  public PgTimerSubscriber shardFilter(IntPredicate shardFilter) {
+    this.shardFilter = shardFilter;
+    return this;
+  }
+
+  public Future<Void> subscribe(Handler<TimerDTO> timerHandler, Handler<Void> subscribedHandler) {
+    subscriber.channel(PgTimerRepository.TIMER_CHANNEL)
+      .subscribeHandler(subscribedHandler)
+      .handler(payload -> {
+        TimerDTO timerDTO;
+        try {
+          var json = new JsonObject(payload);
+          var shard = json.getInteger("shard");
+          if (shard != null && !shardFilter.test(shard)) {
+            return;
+          }
+
+          timerDTO = new TimerDTO(
+            UUID.fromString(json.getString("timerId")),
+            UUID.fromString(json.getString("definitionId")),
+            OffsetDateTime.parse(json.getString("triggerTime")),
+            json.getInteger("attempt", 0)
+          );
+        } catch (RuntimeException e) {
+          logger.warn("illegal timer notification {}", payload, e);
+          return;
+        }
+
+        logger.debug("notified timer {} {}", timerDTO.timerId(), timerDTO.triggerTime());
+        timerHandler.handle(timerDTO);
+      });
+
+    return this.connect();
+  }
+
+  private Future<Void> connect() {
+    return subscriber.connect()
+      .onFailure(event -> {
+        logger.warn("connect timer notification failed, retry later", event);
+        vertx.setTimer(RECONNECT_DELAY_MILLIS, l -> this.connect());
+      });
+  }
+
+  public Future<Void> close() {
+    return subscriber.close();
+  }
+}
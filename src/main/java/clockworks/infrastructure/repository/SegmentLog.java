@@ -0,0 +1,249 @@
+package clockworks.infrastructure.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+public class SegmentLog implements AutoCloseable {
+  private final Logger logger = LoggerFactory.getLogger(SegmentLog.class);
+
+  private static final int HEADER_SIZE = 8;
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+  private static final int SNAPSHOT_CHUNK_SIZE = 1 << 20;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final CRC32C crc = new CRC32C();
+  private long sequence;
+  private MappedByteBuffer segment;
+  private final List<MappedByteBuffer> rolled = new ArrayList<>();
+  private long segmentsSinceSnapshot;
+
+  public SegmentLog(Path directory, int segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+  }
+
+  public void replay(RecordConsumer consumer) {
+    try {
+      Files.createDirectories(directory);
+      var snapshots = this.list(SNAPSHOT_SUFFIX);
+      var snapshotSequence = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+      if (!snapshots.isEmpty()) {
+        try (var channel = FileChannel.open(this.path(snapshotSequence, SNAPSHOT_SUFFIX), StandardOpenOption.READ)) {
+          var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+          if (this.read(buffer, consumer) != buffer.limit()) {
+            throw new IllegalStateException("corrupt snapshot " + snapshotSequence);
+          }
+        }
+      }
+
+      var segments = this.list(SEGMENT_SUFFIX).stream().filter(v -> v >= snapshotSequence).toList();
+      if (segments.isEmpty()) {
+        this.open(snapshotSequence);
+        return;
+      }
+
+      for (int i = 0; i < segments.size(); i++) {
+        var last = i == segments.size() - 1;
+        this.open(segments.get(i));
+        var end = this.read(segment.duplicate(), consumer);
+        if (last) {
+          segment.position(end);
+          this.zero(end);
+        } else if (end + Integer.BYTES <= segmentSize && segment.getInt(end) != 0) {
+          throw new IllegalStateException("corrupt segment " + segments.get(i) + " at " + end);
+        }
+      }
+      segmentsSinceSnapshot = segments.size() - 1;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public void append(byte type, ByteBuffer payload) {
+    var length = payload.remaining() + 1;
+    if (HEADER_SIZE + length > segmentSize) {
+      throw new IllegalArgumentException("record of %d bytes exceeds segment size".formatted(length));
+    }
+    if (segment.remaining() < HEADER_SIZE + length) {
+      this.roll();
+    }
+
+    crc.reset();
+    crc.update(type);
+    crc.update(payload.duplicate());
+    segment.putInt(length);
+    segment.putInt((int) crc.getValue());
+    segment.put(type);
+    segment.put(payload);
+  }
+
+  public void force() {
+    this.pendingForce().run();
+  }
+
+  /**
+   * @return the flush of the segments written since the last one, which may run on another thread while appending
+   * goes on
+   */
+  public Runnable pendingForce() {
+    var segments = new ArrayList<>(rolled);
+    segments.add(segment);
+    rolled.clear();
+    return () -> segments.forEach(MappedByteBuffer::force);
+  }
+
+  public long segmentsSinceSnapshot() {
+    return segmentsSinceSnapshot;
+  }
+
+  /**
+   * @return the writing of the snapshot and the deletion of the segments before it, which may run on another thread
+   * while appending goes on
+   */
+  public Runnable snapshot(Consumer<RecordConsumer> writer) {
+    this.roll();
+    segmentsSinceSnapshot = 0;
+    var snapshotSequence = sequence;
+    var chunks = new ArrayList<ByteBuffer>();
+    chunks.add(ByteBuffer.allocate(SNAPSHOT_CHUNK_SIZE));
+    writer.accept((type, payload) -> {
+      var length = payload.remaining() + 1;
+      var chunk = chunks.get(chunks.size() - 1);
+      if (chunk.remaining() < HEADER_SIZE + length) {
+        chunk = ByteBuffer.allocate(Math.max(SNAPSHOT_CHUNK_SIZE, HEADER_SIZE + length));
+        chunks.add(chunk);
+      }
+      crc.reset();
+      crc.update(type);
+      crc.update(payload.duplicate());
+      chunk.putInt(length).putInt((int) crc.getValue()).put(type).put(payload);
+    });
+
+    return () -> this.writeSnapshot(snapshotSequence, chunks);
+  }
+
+  @Override
+  public void close() {
+    if (segment != null) {
+      this.force();
+    }
+  }
+
+  private void writeSnapshot(long snapshotSequence, List<ByteBuffer> chunks) {
+    var temporary = directory.resolve(snapshotSequence + SNAPSHOT_SUFFIX + ".tmp");
+    try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      for (var chunk : chunks) {
+        this.write(channel, chunk);
+      }
+      channel.force(true);
+      Files.move(temporary, this.path(snapshotSequence, SNAPSHOT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+
+      for (var old : this.list(SEGMENT_SUFFIX)) {
+        if (old < snapshotSequence) {
+          Files.delete(this.path(old, SEGMENT_SUFFIX));
+        }
+      }
+      for (var old : this.list(SNAPSHOT_SUFFIX)) {
+        if (old < snapshotSequence) {
+          Files.delete(this.path(old, SNAPSHOT_SUFFIX));
+        }
+      }
+      logger.info("wrote snapshot {} of {} bytes", snapshotSequence, Files.size(this.path(snapshotSequence, SNAPSHOT_SUFFIX)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private int read(ByteBuffer buffer, RecordConsumer consumer) {
+    while (buffer.remaining() >= HEADER_SIZE) {
+      var start = buffer.position();
+      var length = buffer.getInt();
+      var checksum = buffer.getInt();
+      if (length <= 0 || length > buffer.remaining()) {
+        return start;
+      }
+
+      var record = buffer.slice(buffer.position(), length);
+      crc.reset();
+      crc.update(record.duplicate());
+      if ((int) crc.getValue() != checksum) {
+        logger.warn("checksum mismatch at {}, log truncated", start);
+        return start;
+      }
+
+      consumer.accept(record.get(), record.slice());
+      buffer.position(buffer.position() + length);
+    }
+    return buffer.position();
+  }
+
+  private void roll() {
+    if (segment != null) {
+      rolled.add(segment);
+    }
+    this.open(sequence + 1);
+    segmentsSinceSnapshot++;
+  }
+
+  private void open(long sequence) {
+    try (var channel = FileChannel.open(this.path(sequence, SEGMENT_SUFFIX),
+      StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+      this.sequence = sequence;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void zero(int from) {
+    var zeros = new byte[4096];
+    var buffer = segment.duplicate().position(from);
+    while (buffer.hasRemaining()) {
+      buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+    }
+  }
+
+  private void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private List<Long> list(String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> path.getFileName().toString())
+        .filter(name -> name.endsWith(suffix))
+        .map(name -> Long.parseLong(name.substring(0, name.length() - suffix.length())))
+        .sorted()
+        .toList();
+    }
+  }
+
+  private Path path(long sequence, String suffix) {
+    return directory.resolve("%020d%s".formatted(sequence, suffix));
+  }
+
+  @FunctionalInterface
+  public interface RecordConsumer {
+    void accept(byte type, ByteBuffer payload);
+  }
+}
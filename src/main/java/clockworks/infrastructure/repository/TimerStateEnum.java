@@ -5,4 +5,5 @@ public enum TimerStateEnum {
   WAITING,
   RUNNING,
   FINISHED,
+  DEAD,
 }
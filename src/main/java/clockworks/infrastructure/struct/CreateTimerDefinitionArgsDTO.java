@@ -1,10 +1,17 @@
 package clockworks.infrastructure.struct;
 
+import clockworks.domain.MisfirePolicy;
+
 public record CreateTimerDefinitionArgsDTO(String timerId,
                                            String timerName,
                                            String timerDescription,
                                            Integer initialDelaySeconds,
                                            Integer intervalSeconds,
                                            boolean fixedRate,
-                                           String callbackUrl) {
+                                           String callbackUrl,
+                                           boolean batchCallback,
+                                           RetryPolicyDTO retryPolicy,
+                                           MisfirePolicy misfirePolicy,
+                                           String cronExpression,
+                                           String timeZone) {
 }
@@ -0,0 +1,32 @@
+package clockworks.infrastructure.struct;
+
+import io.vertx.core.json.JsonObject;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record GroupDeletionDTO(UUID deletionId,
+                               String groupId,
+                               int deletedDefinitions,
+                               OffsetDateTime startedAt,
+                               OffsetDateTime finishedAt) {
+
+  public boolean finished() {
+    return finishedAt != null;
+  }
+
+  public JsonObject jsonObject() {
+    return new JsonObject()
+      .put("deletionId", deletionId)
+      .put("groupId", groupId)
+      .put("state", finished() ? "FINISHED" : "RUNNING")
+      .put("deletedDefinitions", deletedDefinitions)
+      .put("startedAt", startedAt)
+      .put("finishedAt", finishedAt);
+  }
+
+  @Override
+  public String toString() {
+    return jsonObject().encode();
+  }
+}
@@ -0,0 +1,31 @@
+package clockworks.infrastructure.struct;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public record RetryPolicyDTO(int maxAttempts,
+                             long baseDelayMillis,
+                             long maxDelayMillis,
+                             double jitter) {
+  public static final RetryPolicyDTO DEFAULT = new RetryPolicyDTO(3, 1000, 60000, 0.2);
+
+  public long delayMillis(int attempt) {
+    var exponent = Math.min(Math.max(attempt - 1, 0), 30);
+    var delay = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+    return (long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+  }
+
+  public JsonObject jsonObject() {
+    return new JsonObject()
+      .put("maxAttempts", maxAttempts)
+      .put("baseDelayMillis", baseDelayMillis)
+      .put("maxDelayMillis", maxDelayMillis)
+      .put("jitter", jitter);
+  }
+
+  @Override
+  public String toString() {
+    return jsonObject().encode();
+  }
+}
@@ -1,9 +1,25 @@
 package clockworks.infrastructure.struct;
 
+import io.vertx.core.json.JsonObject;
+
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 public record TimerDTO(UUID timerId,
                        UUID definitionId,
-                       OffsetDateTime triggerTime) {
+                       OffsetDateTime triggerTime,
+                       int attempt) {
+
+  public JsonObject jsonObject() {
+    return new JsonObject()
+      .put("timerId", timerId)
+      .put("definitionId", definitionId)
+      .put("triggerTime", triggerTime)
+      .put("attempt", attempt);
+  }
+
+  @Override
+  public String toString() {
+    return jsonObject().encode();
+  }
 }
@@ -1,5 +1,6 @@
 package clockworks.infrastructure.struct;
 
+import clockworks.domain.MisfirePolicy;
 import io.vertx.core.json.JsonObject;
 
 import java.time.OffsetDateTime;
@@ -13,6 +14,11 @@ public record TimerDefinitionDTO(UUID definitionId,
                                  int intervalSeconds,
                                  boolean fixedRate,
                                  String callbackUrl,
+                                 boolean batchCallback,
+                                 RetryPolicyDTO retryPolicy,
+                                 MisfirePolicy misfirePolicy,
+                                 String cronExpression,
+                                 String timeZone,
                                  OffsetDateTime updatedAt) {
 
   public JsonObject jsonObject() {
@@ -25,9 +31,18 @@ public record TimerDefinitionDTO(UUID definitionId,
       .put("intervalSeconds", intervalSeconds)
       .put("fixedRate", fixedRate)
       .put("callbackUrl", callbackUrl)
+      .put("batchCallback", batchCallback)
+      .put("retryPolicy", retryPolicy.jsonObject())
+      .put("misfirePolicy", misfirePolicy.name())
+      .put("cronExpression", cronExpression)
+      .put("timeZone", timeZone)
       .put("updatedAt", updatedAt);
   }
 
+  public boolean followsSchedule() {
+    return fixedRate || cronExpression != null;
+  }
+
   @Override
   public String toString() {
     return jsonObject().encode();
@@ -0,0 +1,31 @@
+package clockworks.infrastructure.struct;
+
+import io.vertx.core.json.JsonObject;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record TimerExecutionDTO(UUID timerId,
+                                UUID definitionId,
+                                OffsetDateTime triggerTime,
+                                String state,
+                                String result,
+                                int attempt,
+                                OffsetDateTime executedAt) {
+
+  public JsonObject jsonObject() {
+    return new JsonObject()
+      .put("timerId", timerId)
+      .put("definitionId", definitionId)
+      .put("triggerTime", triggerTime)
+      .put("state", state)
+      .put("result", result)
+      .put("attempt", attempt)
+      .put("executedAt", executedAt);
+  }
+
+  @Override
+  public String toString() {
+    return jsonObject().encode();
+  }
+}
@@ -0,0 +1,39 @@
+package clockworks.infrastructure.struct;
+
+import clockworks.domain.CallResult;
+import clockworks.infrastructure.repository.TimerStateEnum;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record TimerTransitionDTO(UUID timerId,
+                                 TimerStateEnum state,
+                                 int attempt,
+                                 OffsetDateTime triggerTime,
+                                 CallResult result,
+                                 TimerDTO nextTimer) {
+
+  public static TimerTransitionDTO finished(TimerDTO timerDTO, CallResult result, TimerDTO nextTimer) {
+    return new TimerTransitionDTO(timerDTO.timerId(), TimerStateEnum.FINISHED, timerDTO.attempt() + 1, null, result, nextTimer);
+  }
+
+  public static TimerTransitionDTO dead(TimerDTO timerDTO, CallResult result, TimerDTO nextTimer) {
+    return new TimerTransitionDTO(timerDTO.timerId(), TimerStateEnum.DEAD, timerDTO.attempt() + 1, null, result, nextTimer);
+  }
+
+  public static TimerTransitionDTO retry(TimerDTO timerDTO, CallResult result, OffsetDateTime triggerTime, TimerDTO nextTimer) {
+    return new TimerTransitionDTO(timerDTO.timerId(), TimerStateEnum.WAITING, timerDTO.attempt() + 1, triggerTime, result, nextTimer);
+  }
+
+  public static TimerTransitionDTO requeue(TimerDTO timerDTO, OffsetDateTime triggerTime) {
+    return new TimerTransitionDTO(timerDTO.timerId(), TimerStateEnum.WAITING, timerDTO.attempt(), triggerTime, null, null);
+  }
+
+  public static TimerTransitionDTO skipped(TimerDTO timerDTO, TimerDTO nextTimer) {
+    return new TimerTransitionDTO(timerDTO.timerId(), TimerStateEnum.FINISHED, timerDTO.attempt(), null, null, nextTimer);
+  }
+
+  public static TimerTransitionDTO suspended(TimerDTO timerDTO) {
+    return new TimerTransitionDTO(timerDTO.timerId(), TimerStateEnum.SUSPENDED, timerDTO.attempt(), null, null, null);
+  }
+}
@@ -0,0 +1,58 @@
+CREATE TABLE timer_group (
+    id text PRIMARY KEY,
+    name text,
+    description text,
+    updated_at timestamptz NOT NULL
+);
+
+CREATE TABLE timer_definition (
+    id uuid PRIMARY KEY,
+    group_id text,
+    name text NOT NULL,
+    description text,
+    initial_delay_seconds int NOT NULL,
+    interval_seconds int NOT NULL,
+    fixed_rate boolean NOT NULL,
+    callback_url text NOT NULL,
+    batch_callback boolean NOT NULL DEFAULT false,
+    retry_max_attempts int NOT NULL,
+    retry_base_delay_millis bigint NOT NULL,
+    retry_max_delay_millis bigint NOT NULL,
+    retry_jitter float8 NOT NULL,
+    updated_at timestamptz NOT NULL
+);
+
+CREATE INDEX timer_definition_group_id_idx ON timer_definition (group_id);
+
+-- Daily partitions named timer_pYYYYMMDD are created ahead and dropped after retention by PgSchema.rotatePartitions,
+-- timers beyond the created range land in the default partition and are moved out when their day is created.
+CREATE TABLE timer (
+    id uuid NOT NULL,
+    definition_id uuid NOT NULL,
+    trigger_time timestamptz NOT NULL,
+    state text NOT NULL,
+    attempt int NOT NULL DEFAULT 0,
+    locked_at timestamptz,
+    PRIMARY KEY (id, trigger_time)
+) PARTITION BY RANGE (trigger_time);
+
+CREATE TABLE timer_default PARTITION OF timer DEFAULT;
+
+CREATE INDEX timer_waiting_idx ON timer (trigger_time) WHERE state = 'WAITING';
+CREATE INDEX timer_running_idx ON timer (locked_at) WHERE state = 'RUNNING';
+CREATE INDEX timer_definition_id_idx ON timer (definition_id);
+
+CREATE TABLE timer_execution (
+    timer_id uuid NOT NULL,
+    definition_id uuid NOT NULL,
+    trigger_time timestamptz NOT NULL,
+    state text NOT NULL,
+    result text,
+    attempt int NOT NULL,
+    executed_at timestamptz NOT NULL
+) PARTITION BY RANGE (executed_at);
+
+CREATE TABLE timer_execution_default PARTITION OF timer_execution DEFAULT;
+
+CREATE INDEX timer_execution_definition_id_idx ON timer_execution (definition_id, executed_at);
+CREATE INDEX timer_execution_dead_idx ON timer_execution (executed_at) WHERE state = 'DEAD';
@@ -0,0 +1,13 @@
+-- One row per shard of ShardOwner.SHARDS, leased by at most one holder until expires_at.
+CREATE TABLE shard_lease (
+    shard int PRIMARY KEY,
+    holder text,
+    expires_at timestamptz NOT NULL DEFAULT '-infinity'
+);
+
+INSERT INTO shard_lease (shard) SELECT generate_series(0, 255);
+
+CREATE TABLE shard_holder (
+    id text PRIMARY KEY,
+    heartbeat_at timestamptz NOT NULL
+);
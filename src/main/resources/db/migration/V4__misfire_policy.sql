@@ -0,0 +1,2 @@
+-- MisfirePolicy of each definition.
+ALTER TABLE timer_definition ADD COLUMN misfire_policy text NOT NULL DEFAULT 'FIRE_ONCE_NOW';
@@ -0,0 +1,3 @@
+-- Cron schedule of each definition, evaluated in time_zone; null for interval timers.
+ALTER TABLE timer_definition ADD COLUMN cron_expression text;
+ALTER TABLE timer_definition ADD COLUMN time_zone text;
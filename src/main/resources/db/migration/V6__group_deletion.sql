@@ -0,0 +1,11 @@
+-- A running deletion is the tombstone of its group: the group's timers are no longer claimed while its definitions
+-- are deleted in chunks. Finished deletions are kept as the status of the request.
+CREATE TABLE group_deletion (
+    id uuid PRIMARY KEY,
+    group_id text NOT NULL,
+    deleted_definitions int NOT NULL DEFAULT 0,
+    started_at timestamptz NOT NULL,
+    finished_at timestamptz
+);
+
+CREATE UNIQUE INDEX group_deletion_running_idx ON group_deletion (group_id) WHERE finished_at IS NULL;
@@ -0,0 +1,7 @@
+-- Lists the definitions of a group in id order, for keyset pagination.
+CREATE INDEX timer_definition_group_id_id_idx ON timer_definition (group_id, id);
+DROP INDEX timer_definition_group_id_idx;
+
+-- Lists the executions of a definition newest first, for keyset pagination.
+CREATE INDEX timer_execution_definition_id_executed_at_idx ON timer_execution (definition_id, executed_at, timer_id);
+DROP INDEX timer_execution_definition_id_idx;
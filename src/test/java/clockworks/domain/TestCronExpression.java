@@ -0,0 +1,128 @@
+package clockworks.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCronExpression {
+  private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+  @Test
+  void fires_on_weekdays_in_the_time_zone() {
+    var cron = CronExpression.parse("0 2 * * MON-FRI");
+    // Friday 2024-03-01 03:00 in Berlin
+    var after = OffsetDateTime.parse("2024-03-01T02:00:00Z");
+
+    var next = cron.next(after, BERLIN);
+    assertEquals(OffsetDateTime.parse("2024-03-04T02:00:00+01:00"), next);
+    assertEquals(OffsetDateTime.parse("2024-03-05T02:00:00+01:00"), cron.next(next, BERLIN));
+  }
+
+  @Test
+  void fires_strictly_after() {
+    var cron = CronExpression.parse("*/15 * * * *");
+    var after = OffsetDateTime.parse("2024-01-01T10:15:00Z");
+    assertEquals(OffsetDateTime.parse("2024-01-01T10:30:00Z"), cron.next(after, ZoneOffset.UTC));
+    assertEquals(OffsetDateTime.parse("2024-01-01T10:30:00Z"), cron.next(after.plusSeconds(59), ZoneOffset.UTC));
+  }
+
+  @Test
+  void matches_either_day_field_when_both_are_restricted() {
+    var cron = CronExpression.parse("0 0 13 * FRI");
+    var next = cron.next(OffsetDateTime.parse("2024-09-01T00:00:00Z"), ZoneOffset.UTC);
+    assertEquals(OffsetDateTime.parse("2024-09-06T00:00:00Z"), next);
+    next = cron.next(OffsetDateTime.parse("2024-09-10T00:00:00Z"), ZoneOffset.UTC);
+    assertEquals(OffsetDateTime.parse("2024-09-13T00:00:00Z"), next);
+  }
+
+  @Test
+  void finds_the_next_leap_day() {
+    var cron = CronExpression.parse("0 0 29 FEB *");
+    var next = cron.next(OffsetDateTime.parse("2096-03-01T00:00:00Z"), ZoneOffset.UTC);
+    assertEquals(OffsetDateTime.parse("2104-02-29T00:00:00Z"), next);
+  }
+
+  @Test
+  void shifts_times_skipped_by_daylight_saving() {
+    var cron = CronExpression.parse("30 2 * * *");
+    // 02:30 does not exist in Berlin on 2024-03-31
+    var next = cron.next(OffsetDateTime.parse("2024-03-30T12:00:00+01:00"), BERLIN);
+    assertEquals(OffsetDateTime.parse("2024-03-31T03:30:00+02:00"), next);
+    assertEquals(OffsetDateTime.parse("2024-04-01T02:30:00+02:00"), cron.next(next, BERLIN));
+  }
+
+  @Test
+  void fires_once_in_a_repeated_hour() {
+    var cron = CronExpression.parse("30 2 * * *");
+    // 02:30 happens twice in Berlin on 2024-10-27
+    var next = cron.next(OffsetDateTime.parse("2024-10-26T12:00:00+02:00"), BERLIN);
+    assertEquals(OffsetDateTime.parse("2024-10-27T02:30:00+02:00"), next);
+    assertEquals(OffsetDateTime.parse("2024-10-28T02:30:00+01:00"), cron.next(next, BERLIN));
+  }
+
+  @Test
+  void agrees_with_a_minute_by_minute_search() {
+    var expressions = new String[]{
+      "0 2 * * MON-FRI",
+      "5,35 */6 1-7 * *",
+      "0 0 1,15 * SUN",
+      "59 23 31 * *",
+      "*/20 9-17 * JAN,JUL 1-5",
+      "@weekly",
+    };
+    var random = new Random(42);
+    for (var expression : expressions) {
+      var cron = CronExpression.parse(expression);
+      for (int i = 0; i < 50; i++) {
+        var after = LocalDateTime.of(2020, 1, 1, 0, 0)
+          .plusMinutes(random.nextInt(60 * 24 * 365 * 4))
+          .atOffset(ZoneOffset.UTC);
+        assertEquals(bruteForceNext(expression, after), cron.next(after, ZoneOffset.UTC), expression + " after " + after);
+      }
+    }
+  }
+
+  @Test
+  void rejects_illegal_expressions() {
+    assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * *"));
+    assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+    assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * * MON-"));
+    assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("*/0 * * * *"));
+    assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 30 FEB *"));
+  }
+
+  @Test
+  void shares_compiled_expressions() {
+    assertSame(CronExpression.compile("0 2 * * MON-FRI"), CronExpression.compile("0 2 * * MON-FRI"));
+  }
+
+  private static OffsetDateTime bruteForceNext(String expression, OffsetDateTime after) {
+    var time = after.plusMinutes(1).withSecond(0).withNano(0);
+    for (int i = 0; i < 60 * 24 * 366 * 2; i++, time = time.plusMinutes(1)) {
+      var matches = switch (expression) {
+        case "0 2 * * MON-FRI" -> time.getMinute() == 0 && time.getHour() == 2
+          && time.getDayOfWeek().getValue() <= 5;
+        case "5,35 */6 1-7 * *" -> (time.getMinute() == 5 || time.getMinute() == 35) && time.getHour() % 6 == 0
+          && time.getDayOfMonth() <= 7;
+        case "0 0 1,15 * SUN" -> time.getMinute() == 0 && time.getHour() == 0
+          && (time.getDayOfMonth() == 1 || time.getDayOfMonth() == 15 || time.getDayOfWeek() == DayOfWeek.SUNDAY);
+        case "59 23 31 * *" -> time.getMinute() == 59 && time.getHour() == 23 && time.getDayOfMonth() == 31;
+        case "*/20 9-17 * JAN,JUL 1-5" -> time.getMinute() % 20 == 0 && time.getHour() >= 9 && time.getHour() <= 17
+          && (time.getMonthValue() == 1 || time.getMonthValue() == 7) && time.getDayOfWeek().getValue() <= 5;
+        case "@weekly" -> time.getMinute() == 0 && time.getHour() == 0 && time.getDayOfWeek() == DayOfWeek.SUNDAY;
+        default -> throw new IllegalArgumentException(expression);
+      };
+      if (matches) {
+        return time;
+      }
+    }
+    return null;
+  }
+}
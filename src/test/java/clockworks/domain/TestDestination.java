@@ -0,0 +1,23 @@
+package clockworks.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDestination {
+  @Test
+  void a_late_permit_does_not_end_the_half_open_trial() {
+    var destination = new Destination("localhost", 10, 0, 0, 1, 60_000);
+    var now = System.currentTimeMillis();
+    var late = destination.tryAcquire("http://localhost/late", now).orElseThrow();
+    destination.tryAcquire("http://localhost/failed", now).orElseThrow().release(CallResult.RETRYABLE_FAILURE);
+    assertTrue(destination.tryAcquire("http://localhost/rejected", now).isEmpty());
+
+    var trial = destination.tryAcquire("http://localhost/trial", now + 120_000).orElseThrow();
+    late.release();
+    assertTrue(destination.tryAcquire("http://localhost/second", now + 120_000).isEmpty());
+
+    trial.release(CallResult.SUCCESS);
+    assertTrue(destination.tryAcquire("http://localhost/closed", now + 120_000).isPresent());
+  }
+}
@@ -0,0 +1,37 @@
+package clockworks.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDispatchSlots {
+  @Test
+  void reserves_no_more_than_the_free_slots() {
+    var slots = new DispatchSlots(10, 0);
+    assertEquals(6, slots.tryAcquire(6));
+    assertEquals(4, slots.tryAcquire(6));
+    assertEquals(0, slots.tryAcquire(1));
+
+    slots.release(3);
+    assertEquals(3, slots.tryAcquire(5));
+  }
+
+  @Test
+  void resumes_a_starved_claimer_once_enough_slots_are_free() {
+    var resumed = new AtomicInteger();
+    var slots = new DispatchSlots(10, 0).freeHandler(4, v -> resumed.incrementAndGet());
+    slots.tryAcquire(10);
+    slots.release(2);
+    assertEquals(0, resumed.get(), "nobody was refused a slot");
+
+    assertEquals(2, slots.tryAcquire(5));
+    slots.release(3);
+    assertEquals(0, resumed.get(), "fewer slots free than asked for");
+    slots.release(1);
+    assertEquals(1, resumed.get());
+    slots.release(6);
+    assertEquals(1, resumed.get(), "called once per starvation");
+  }
+}
@@ -0,0 +1,38 @@
+package clockworks.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTimeOrderedIdGenerator {
+
+  @Test
+  void creates_version_7_ids_of_the_current_millisecond() {
+    var before = System.currentTimeMillis();
+    var id = IdGenerator.timeOrdered().next();
+    var after = System.currentTimeMillis();
+
+    assertEquals(7, id.version());
+    assertEquals(2, id.variant());
+    var millis = id.getMostSignificantBits() >>> 16;
+    assertTrue(millis >= before && millis <= after + 1, "timestamp " + millis);
+  }
+
+  @Test
+  void creates_increasing_ids_within_a_thread() {
+    var generator = IdGenerator.timeOrdered();
+    var ids = new HashSet<UUID>();
+    var previous = generator.next();
+    for (int i = 0; i < 100_000; i++) {
+      var id = generator.next();
+      // uuid columns compare as unsigned bytes, unlike UUID.compareTo
+      assertTrue(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()) > 0,
+        previous + " before " + id);
+      assertTrue(ids.add(id));
+      previous = id;
+    }
+  }
+}
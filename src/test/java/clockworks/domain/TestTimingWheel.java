@@ -0,0 +1,53 @@
+package clockworks.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTimingWheel {
+
+  @Test
+  void fires_entries_in_expiration_order_across_levels() {
+    var wheel = new TimingWheel<Long>(1, 8, 0);
+    var expirations = List.of(3L, 7L, 20L, 65L, 300L, 301L, 5000L);
+    for (var expiration : expirations) {
+      assertTrue(wheel.add(expiration, expiration));
+    }
+
+    var fired = new ArrayList<Long>();
+    while (wheel.nextExpiration() != Long.MAX_VALUE) {
+      var now = wheel.nextExpiration();
+      wheel.advance(now, expiration -> {
+        assertTrue(expiration <= now);
+        fired.add(expiration);
+      });
+    }
+
+    assertEquals(expirations, fired);
+  }
+
+  @Test
+  void fires_each_entry_at_its_own_millisecond() {
+    var wheel = new TimingWheel<Long>(1, 512, 1_000);
+    wheel.add(1_250, 1_250L);
+    wheel.add(41_777, 41_777L);
+
+    var fired = new ArrayList<Long>();
+    wheel.advance(41_776, fired::add);
+    assertEquals(List.of(1_250L), fired);
+
+    wheel.advance(41_777, fired::add);
+    assertEquals(List.of(1_250L, 41_777L), fired);
+  }
+
+  @Test
+  void rejects_expired_entries() {
+    var wheel = new TimingWheel<String>(1, 512, 1_000);
+    assertFalse(wheel.add(1_000, "now"));
+    assertFalse(wheel.add(10, "past"));
+    assertEquals(Long.MAX_VALUE, wheel.nextExpiration());
+  }
+}
@@ -0,0 +1,72 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.domain.MisfirePolicy;
+import clockworks.infrastructure.struct.RetryPolicyDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCachingTimerRepository {
+  @Test
+  void a_lookup_racing_an_update_does_not_cache_the_old_definition() {
+    var delegate = new HeldLookups();
+    var cache = new CachingTimerRepository(delegate, 100, 60_000);
+    var definitionId = UUID.randomUUID();
+    delegate.save(definition(definitionId, "old"), timer(definitionId));
+
+    var lookup = cache.findById(definitionId);
+    var stale = delegate.held.remove(0);
+    cache.save(definition(definitionId, "new"), timer(definitionId));
+    stale.complete(definition(definitionId, "old"));
+    assertEquals("old", lookup.result().timerName());
+
+    cache.findById(definitionId);
+    delegate.held.remove(0).complete(definition(definitionId, "new"));
+    assertEquals("new", cache.findById(definitionId).result().timerName());
+    assertEquals(1, cache.hitCount());
+  }
+
+  private static TimerDefinitionDTO definition(UUID definitionId, String name) {
+    return new TimerDefinitionDTO(
+      definitionId,
+      definitionId.toString(),
+      name,
+      null,
+      0,
+      60,
+      false,
+      "http://localhost:9000/callback",
+      false,
+      RetryPolicyDTO.DEFAULT,
+      MisfirePolicy.FIRE_ONCE_NOW,
+      null,
+      null,
+      OffsetDateTime.now(ZoneOffset.UTC)
+    );
+  }
+
+  private static TimerDTO timer(UUID definitionId) {
+    return new TimerDTO(UUID.randomUUID(), definitionId, OffsetDateTime.now(ZoneOffset.UTC).plusMinutes(1), 0);
+  }
+
+  private static class HeldLookups extends InMemoryTimerRepository {
+    private final List<Promise<TimerDefinitionDTO>> held = new ArrayList<>();
+
+    @Override
+    public Future<TimerDefinitionDTO> findById(UUID id) {
+      var promise = Promise.<TimerDefinitionDTO>promise();
+      held.add(promise);
+      return promise.future();
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.infrastructure.struct.RetryPolicyDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
+import clockworks.domain.CallResult;
+import clockworks.domain.MisfirePolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEmbeddedTimerRepository {
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void recovers_definitions_and_timers_after_restart() {
+    var repository = this.open();
+    var definitionDTO = definition();
+    var due = timer(definitionDTO, OffsetDateTime.now(ZoneOffset.UTC).minusSeconds(1));
+    repository.save(definitionDTO, due);
+
+    var claimed = repository.lockDueTimers(new int[0], 10).result();
+    assertEquals(List.of(due.timerId()), claimed.stream().map(TimerDTO::timerId).toList());
+    repository.close();
+
+    var recovered = this.open();
+    assertEquals(definitionDTO.callbackUrl(), recovered.findById(definitionDTO.definitionId()).result().callbackUrl());
+    assertEquals(1, recovered.lockDueTimers(new int[0], 10).result().size(), "claimed timer waits again after restart");
+  }
+
+  @Test
+  void settles_fired_timers_and_keeps_dead_ones() {
+    var repository = this.open();
+    var definitionDTO = definition();
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    var fired = timer(definitionDTO, now.minusSeconds(1));
+    var next = timer(definitionDTO, now.plusMinutes(1));
+    repository.save(definitionDTO, fired);
+    repository.lockDueTimers(new int[0], 10);
+    repository.transition(List.of(TimerTransitionDTO.dead(fired, CallResult.PERMANENT_FAILURE, next)));
+    repository.close();
+
+    var recovered = this.open();
+    assertEquals(1, recovered.size());
+    assertEquals(List.of(fired.timerId()), recovered.findDeadTimers(10).result().stream().map(TimerDTO::timerId).toList());
+    var waiting = recovered.findWaitingTimers(new int[0], now.plusHours(1), 10).result();
+    assertEquals(List.of(next.timerId()), waiting.stream().map(TimerDTO::timerId).toList());
+  }
+
+  @Test
+  void a_stale_wheel_entry_does_not_claim_a_retried_timer() {
+    var repository = this.open();
+    var definitionDTO = definition();
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    var fired = timer(definitionDTO, now.minusSeconds(1));
+    repository.save(definitionDTO, fired);
+    repository.lockDueTimers(new int[0], 10);
+    repository.transition(List.of(TimerTransitionDTO.retry(fired, CallResult.RETRYABLE_FAILURE, now.plusSeconds(10), null)));
+
+    assertEquals(List.of(), repository.lockTimers(List.of(fired.timerId()), now.plusNanos(1_000_000)).result());
+    assertEquals(1, repository.lockTimers(List.of(fired.timerId()), now.plusSeconds(10)).result().size());
+  }
+
+  @Test
+  void ignores_a_torn_record_at_the_end_of_the_log() throws IOException {
+    var repository = this.open();
+    var definitionDTO = definition();
+    repository.save(definitionDTO, timer(definitionDTO, OffsetDateTime.now(ZoneOffset.UTC)));
+    repository.close();
+
+    try (var files = Files.list(directory)) {
+      var segment = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+      try (var channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        var end = 0;
+        while (buffer.getInt(end) != 0) {
+          end += 8 + buffer.getInt(end);
+        }
+        buffer.putInt(end, 100).putInt(end + 4, 12345).put(end + 8, (byte) 3);
+        buffer.force();
+      }
+    }
+
+    var recovered = this.open();
+    assertEquals(1, recovered.size());
+    var other = definition();
+    recovered.save(other, timer(other, OffsetDateTime.now(ZoneOffset.UTC)));
+    recovered.close();
+    assertEquals(2, this.open().size());
+  }
+
+  @Test
+  void compaction_replaces_segments_with_a_snapshot() throws IOException {
+    var repository = this.open();
+    var definitionDTO = definition();
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    for (int i = 0; i < 200; i++) {
+      repository.save(definitionDTO, timer(definitionDTO, now.plusSeconds(i)));
+    }
+    var last = timer(definitionDTO, now.plusHours(1));
+    repository.save(definitionDTO, last);
+    repository.compact(1);
+    repository.close();
+
+    try (var files = Files.list(directory)) {
+      assertEquals(2, files.count(), "one snapshot and the segment after it");
+    }
+    var recovered = this.open();
+    var waiting = recovered.findWaitingTimers(new int[0], now.plusDays(1), 10).result();
+    assertEquals(List.of(last.timerId()), waiting.stream().map(TimerDTO::timerId).toList());
+  }
+
+  private EmbeddedTimerRepository open() {
+    return new EmbeddedTimerRepository(directory, SEGMENT_SIZE, 100, 0);
+  }
+
+  private static TimerDefinitionDTO definition() {
+    return new TimerDefinitionDTO(
+      UUID.randomUUID(),
+      null,
+      "timer",
+      "description",
+      0,
+      60,
+      false,
+      "http://localhost:9000/callback",
+      false,
+      RetryPolicyDTO.DEFAULT,
+      MisfirePolicy.FIRE_ONCE_NOW,
+      null,
+      null,
+      OffsetDateTime.now(ZoneOffset.UTC)
+    );
+  }
+
+  private static TimerDTO timer(TimerDefinitionDTO definitionDTO, OffsetDateTime triggerTime) {
+    return new TimerDTO(UUID.randomUUID(), definitionDTO.definitionId(), triggerTime, 0);
+  }
+}
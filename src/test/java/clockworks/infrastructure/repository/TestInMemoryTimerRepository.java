@@ -0,0 +1,85 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.domain.CallResult;
+import clockworks.infrastructure.struct.GroupTimerDefinitionDTO;
+import clockworks.infrastructure.struct.TimerDTO;
+import clockworks.infrastructure.struct.TimerTransitionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestInMemoryTimerRepository {
+  private static final GroupTimerDefinitionDTO EMPTY_GROUP = new GroupTimerDefinitionDTO(null, null, null, List.of(), null);
+
+  @Test
+  void concurrent_claims_hand_out_each_due_timer_once() throws InterruptedException {
+    var repository = new InMemoryTimerRepository();
+    var definitionId = UUID.randomUUID();
+    var triggerTime = OffsetDateTime.now(ZoneOffset.UTC).minusSeconds(1);
+    var timers = new ArrayList<TimerDTO>();
+    for (int i = 0; i < 100_000; i++) {
+      timers.add(new TimerDTO(UUID.randomUUID(), definitionId, triggerTime.minusNanos(i * 1000L), 0));
+    }
+    repository.save(EMPTY_GROUP, timers);
+
+    var claimed = ConcurrentHashMap.<UUID>newKeySet();
+    var duplicates = new AtomicInteger();
+    var threads = 8;
+    var done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(() -> {
+        List<TimerDTO> batch;
+        do {
+          batch = repository.lockDueTimers(new int[0], 100).result();
+          batch.forEach(timerDTO -> {
+            if (!claimed.add(timerDTO.timerId())) {
+              duplicates.incrementAndGet();
+            }
+          });
+        } while (!batch.isEmpty());
+        done.countDown();
+      }).start();
+    }
+    done.await();
+
+    assertEquals(0, duplicates.get());
+    assertEquals(timers.size(), claimed.size());
+    assertEquals(List.of(), repository.lockDueTimers(new int[0], 100).result());
+  }
+
+  @Test
+  void finds_waiting_timers_in_trigger_order_until_the_limit() {
+    var repository = new InMemoryTimerRepository();
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    var definitionId = UUID.randomUUID();
+    var late = new TimerDTO(UUID.randomUUID(), definitionId, now.plusSeconds(30), 0);
+    var early = new TimerDTO(UUID.randomUUID(), definitionId, now.plusSeconds(10), 0);
+    var beyond = new TimerDTO(UUID.randomUUID(), definitionId, now.plusSeconds(90), 0);
+    repository.save(EMPTY_GROUP, List.of(late, early, beyond));
+
+    var waiting = repository.findWaitingTimers(new int[0], now.plusSeconds(60), 10).result();
+    assertEquals(List.of(early.timerId(), late.timerId()), waiting.stream().map(TimerDTO::timerId).toList());
+  }
+
+  @Test
+  void a_stale_wheel_entry_does_not_claim_a_retried_timer() {
+    var repository = new InMemoryTimerRepository();
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    var timerDTO = new TimerDTO(UUID.randomUUID(), UUID.randomUUID(), now.minusSeconds(1), 0);
+    repository.save(EMPTY_GROUP, List.of(timerDTO));
+    repository.lockDueTimers(new int[0], 10);
+    repository.transition(List.of(TimerTransitionDTO.retry(timerDTO, CallResult.RETRYABLE_FAILURE, now.plusSeconds(10), null)));
+
+    assertEquals(List.of(), repository.lockTimers(List.of(timerDTO.timerId()), now.plusNanos(1_000_000)).result());
+    assertEquals(1, repository.lockTimers(List.of(timerDTO.timerId()), now.plusSeconds(10)).result().size());
+  }
+}
@@ -0,0 +1,27 @@
+package clockworks.infrastructure.repository;
+
+import clockworks.domain.ShardOwner;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPgShardLeases {
+  @Test
+  void passes_released_shards_as_one_array_parameter() {
+    var arguments = PgShardLeases.releaseArguments("node-0", new int[]{3, 7, 9});
+    assertEquals(2, arguments.size());
+    assertEquals("node-0", arguments.getString(0));
+    assertArrayEquals(new Integer[]{3, 7, 9}, arguments.getArrayOfIntegers(1));
+  }
+
+  @Test
+  void shares_cover_all_shards() {
+    assertEquals(ShardOwner.SHARDS, PgShardLeases.share(0));
+    assertEquals(ShardOwner.SHARDS, PgShardLeases.share(1));
+    for (int holders = 1; holders <= 300; holders++) {
+      var share = PgShardLeases.share(holders);
+      assertTrue((long) share * holders >= ShardOwner.SHARDS, "holders " + holders);
+      assertTrue((long) (share - 1) * holders < ShardOwner.SHARDS, "holders " + holders);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package clockworks.infrastructure.repository;
+
+import io.vertx.pgclient.PgException;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPgTimerRepository {
+  private static final Pattern GLUED_KEYWORD = Pattern.compile("\\bAND[A-Z]|\\)[A-Z]");
+
+  @Test
+  void claims_skip_groups_being_deleted() {
+    for (var sql : new String[]{PgTimerRepository.LOCK_DUE_TIMERS, PgTimerRepository.LOCK_TIMERS}) {
+      assertTrue(sql.contains("state = 'WAITING' AND") && sql.contains("AND NOT EXISTS ("), sql);
+      assertFalse(GLUED_KEYWORD.matcher(sql).find(), sql);
+    }
+    assertTrue(Pattern.compile("\\)\\s+ORDER BY trigger_time").matcher(PgTimerRepository.LOCK_DUE_TIMERS).find());
+    assertTrue(Pattern.compile("\\)\\s+RETURNING id").matcher(PgTimerRepository.LOCK_TIMERS).find());
+    assertTrue(PgTimerRepository.LOCK_TIMERS.contains("trigger_time <= $3"), "a stale wheel entry must not claim a moved timer");
+  }
+
+  @Test
+  void recovers_only_owned_shards() {
+    assertTrue(PgTimerRepository.RECOVER_STALE_TIMERS.contains("AND shard = ANY($2)"));
+  }
+
+  @Test
+  void claims_retry_rows_moved_to_another_partition() {
+    assertTrue(PgTimerRepository.movedRow(new PgException(
+      "tuple to be locked was already moved to another partition due to concurrent update", "ERROR", "40001", null)));
+    assertFalse(PgTimerRepository.movedRow(new PgException("deadlock detected", "ERROR", "40P01", null)));
+    assertFalse(PgTimerRepository.movedRow(new IllegalStateException()));
+  }
+}